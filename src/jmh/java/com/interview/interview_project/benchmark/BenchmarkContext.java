@@ -0,0 +1,115 @@
+package com.interview.interview_project.benchmark;
+
+import com.interview.interview_project.FiverrShortlinksApplication;
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.model.LinkMonthlyStats;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.service.BulkCreateResult;
+import com.interview.interview_project.service.BulkLinkService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application against an in-memory database, for benchmarks that exercise
+ * services end to end. {@link #start} runs without a web layer; {@link #startWeb} adds
+ * the servlet stack (on a random port) for benchmarks that dispatch HTTP requests.
+ * <ul>
+ *   <li>{@code h2}: plain H2, as used by the test suite</li>
+ *   <li>{@code h2-postgres}: H2 in PostgreSQL compatibility mode, the closest stand-in for
+ *   Postgres that runs in-process</li>
+ * </ul>
+ */
+final class BenchmarkContext {
+
+    private static final int SEED_CHUNK = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        return start(database, "none", new Class<?>[0], extraArgs);
+    }
+
+    /**
+     * Like {@link #start}, with the servlet stack and extra configuration classes,
+     * e.g. to replace beans the benchmark wants out of the way.
+     */
+    static ConfigurableApplicationContext startWeb(String database, Class<?>[] sources, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(extraArgs));
+        args.add("--server.port=0");
+        return start(database, "servlet", sources, args.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext start(String database, String webApplicationType,
+                                                        Class<?>[] sources, String... extraArgs) {
+        String name = "bench" + UUID.randomUUID().toString().replace("-", "");
+        String url = switch (database) {
+            case "h2" -> "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+            case "h2-postgres" -> "jdbc:h2:mem:" + name
+                    + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+            default -> throw new IllegalArgumentException("Unknown benchmark database: " + database);
+        };
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--spring.main.web-application-type=" + webApplicationType,
+                "--spring.main.banner-mode=off",
+                "--shortlinks.journal.dir=target/benchmark-journal/" + name,
+                "--shortlinks.short-code.secret=24061",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(FiverrShortlinksApplication.class)
+                .sources(sources)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Creates {@code count} links through the bulk path and returns their short codes.
+     */
+    static String[] seedLinks(ConfigurableApplicationContext context, int count) {
+        BulkLinkService bulkLinkService = context.getBean(BulkLinkService.class);
+        String[] codes = new String[count];
+        for (int start = 0; start < count; start += SEED_CHUNK) {
+            List<String> urls = new ArrayList<>(SEED_CHUNK);
+            for (int i = start; i < Math.min(count, start + SEED_CHUNK); i++) {
+                urls.add(seedUrl(i));
+            }
+            List<BulkCreateResult> results = bulkLinkService.createShortLinks(urls);
+            for (int i = 0; i < results.size(); i++) {
+                codes[start + i] = results.get(i).link().getShortCode();
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Gives each of the first {@code links} links a rollup row for each of the last
+     * {@code months} months, so stats pages have real monthly breakdowns to build.
+     */
+    static void seedMonthlyStats(ConfigurableApplicationContext context, List<Link> links, int months) {
+        LinkMonthlyStatsRepository repository = context.getBean(LinkMonthlyStatsRepository.class);
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        List<LinkMonthlyStats> rows = new ArrayList<>(links.size() * months);
+        for (Link link : links) {
+            for (int m = 0; m < months; m++) {
+                rows.add(new LinkMonthlyStats(link.getId(), thisMonth.minusMonths(m), 20, 10, 50_000_000));
+            }
+        }
+        repository.saveAll(rows);
+    }
+
+    static String seedUrl(int i) {
+        return "https://fiverr.com/benchmark/seed/" + i;
+    }
+}
@@ -0,0 +1,72 @@
+package com.interview.interview_project.benchmark;
+
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.repository.LinkRepository;
+import com.interview.interview_project.service.ClickContext;
+import com.interview.interview_project.service.ClickTrackingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the redirect thread pays to hand off a click: fraud batching and the write-behind
+ * queue are asynchronous, so this measures the caller-side cost only. Fraud batches are
+ * window-bound here so the simulated 500ms backend isn't the bottleneck.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class ClickTrackingBenchmark {
+
+    private static final String CLIENT_IP = "10.0.0.1";
+    private static final String USER_AGENT = "Mozilla/5.0 (benchmark)";
+
+    @Param({"h2", "h2-postgres"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+    private ClickTrackingService clickTrackingService;
+    private Long[] linkIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(database, "--shortlinks.fraud.max-batch-size=100000");
+        clickTrackingService = context.getBean(ClickTrackingService.class);
+        BenchmarkContext.seedLinks(context, 1000);
+        linkIds = context.getBean(LinkRepository.class)
+                .findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1000)).stream()
+                .map(Link::getId)
+                .toArray(Long[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void processClick() {
+        Long linkId = linkIds[ThreadLocalRandom.current().nextInt(linkIds.length)];
+        clickTrackingService.processClick(ClickContext.of(linkId, CLIENT_IP, USER_AGENT, System.currentTimeMillis()));
+    }
+}
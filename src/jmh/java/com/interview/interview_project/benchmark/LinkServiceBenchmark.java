@@ -0,0 +1,105 @@
+package com.interview.interview_project.benchmark;
+
+import com.interview.interview_project.dto.LinkStatsResponse;
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.repository.LinkRepository;
+import com.interview.interview_project.service.CachedLink;
+import com.interview.interview_project.service.LinkService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Link creation, lookup and stats against a seeded database.
+ * <p>
+ * For create throughput at scale, raise the seed size, e.g.
+ * {@code -Djmh.args="LinkServiceBenchmark.createShortLink -p links=10000000 -jvmArgs -Xmx8g"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LinkServiceBenchmark {
+
+    @Param({"h2", "h2-postgres"})
+    public String database;
+
+    @Param({"sequence", "random"})
+    public String strategy;
+
+    @Param({"100000"})
+    public int links;
+
+    /** Months of rollup rows per link on the stats pages. */
+    @Param({"12"})
+    public int statsMonths;
+
+    private static final int STATS_PAGE_SIZE = 50;
+
+    private ConfigurableApplicationContext context;
+    private LinkService linkService;
+    private String[] shortCodes;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(database,
+                "--shortlinks.short-code.strategy=" + strategy,
+                "--shortlinks.cache.warm-up-size=0");
+        linkService = context.getBean(LinkService.class);
+        shortCodes = BenchmarkContext.seedLinks(context, links);
+        LinkRepository linkRepository = context.getBean(LinkRepository.class);
+        BenchmarkContext.seedMonthlyStats(context,
+                linkRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(STATS_PAGE_SIZE * 20)), statsMonths);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Link createShortLink() {
+        return linkService.createShortLink("https://fiverr.com/benchmark/new/" + created.incrementAndGet());
+    }
+
+    @Benchmark
+    public Link createShortLinkExisting() {
+        return linkService.createShortLink(BenchmarkContext.seedUrl(ThreadLocalRandom.current().nextInt(links)));
+    }
+
+    @Benchmark
+    public Link getByShortCode() {
+        return linkService.getByShortCode(shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)]);
+    }
+
+    @Benchmark
+    public CachedLink resolve() {
+        return linkService.resolve(shortCodes[ThreadLocalRandom.current().nextInt(shortCodes.length)]);
+    }
+
+    @Benchmark
+    public Page<LinkStatsResponse> getStats() {
+        return linkService.getStats(PageRequest.of(ThreadLocalRandom.current().nextInt(20), STATS_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,118 @@
+package com.interview.interview_project.benchmark;
+
+import com.interview.interview_project.service.ClickContext;
+import com.interview.interview_project.service.ClickIngestionPipeline;
+import com.interview.interview_project.service.ClickJournal;
+import com.interview.interview_project.service.ClickTrackingService;
+import com.interview.interview_project.service.FraudValidationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One redirect through Spring MVC's DispatcherServlet with every code already cached,
+ * from handler lookup to the written 302. Servlet filters and Tomcat are left out so
+ * the numbers reflect the application's own work, and click tracking is stubbed since
+ * its asynchronous half would otherwise dominate (see {@link ClickTrackingBenchmark}
+ * for the hand-off cost). Run with the GC profiler to see
+ * bytes allocated per redirect ({@code gc.alloc.rate.norm}), e.g.
+ * {@code -Djmh.args="RedirectBenchmark -prof gc"}. The request and response mocks
+ * account for a fixed part of that figure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RedirectBenchmark {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"1000"})
+    public int links;
+
+    private ConfigurableApplicationContext context;
+    private DispatcherServlet dispatcherServlet;
+    private String[] paths;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServletException, IOException {
+        context = BenchmarkContext.startWeb(database, new Class<?>[] {NoClickTracking.class});
+        WebApplicationContext webContext = (WebApplicationContext) context;
+        dispatcherServlet = new DispatcherServlet(webContext);
+        dispatcherServlet.init(new MockServletConfig(webContext.getServletContext()));
+
+        String[] codes = BenchmarkContext.seedLinks(context, links);
+        paths = new String[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            paths[i] = "/" + codes[i];
+            redirect(paths[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcherServlet.destroy();
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse redirect() throws ServletException, IOException {
+        return redirect(paths[ThreadLocalRandom.current().nextInt(paths.length)]);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class NoClickTracking {
+
+        @Bean
+        @Primary
+        ClickTrackingService noClickTracking(ClickIngestionPipeline clickIngestionPipeline,
+                                             FraudValidationService fraudValidationService,
+                                             ClickJournal clickJournal,
+                                             MeterRegistry meterRegistry) {
+            return new ClickTrackingService(clickIngestionPipeline, fraudValidationService, clickJournal,
+                    meterRegistry) {
+                @Override
+                public void processClick(ClickContext context) {
+                }
+            };
+        }
+    }
+
+    private MockHttpServletResponse redirect(String path) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        dispatcherServlet.service(request, response);
+        if (response.getStatus() != 302) {
+            throw new IllegalStateException("Expected a redirect for " + path + ", got " + response.getStatus());
+        }
+        return response;
+    }
+}
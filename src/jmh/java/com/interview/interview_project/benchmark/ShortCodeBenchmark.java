@@ -0,0 +1,71 @@
+package com.interview.interview_project.benchmark;
+
+import com.interview.interview_project.service.IdBlockAllocator;
+import com.interview.interview_project.service.RandomShortCodeGenerator;
+import com.interview.interview_project.service.SequenceShortCodeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing one short code, without the database. Block allocation is stubbed,
+ * so the sequence numbers are the encode + permutation cost alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortCodeBenchmark {
+
+    private RandomShortCodeGenerator random;
+    private SequenceShortCodeGenerator sequence;
+
+    @Setup
+    public void setUp() {
+        random = new RandomShortCodeGenerator();
+        sequence = new SequenceShortCodeGenerator(new InMemoryAllocator(), 1000, true, 42L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sequence.close();
+    }
+
+    @Benchmark
+    public String randomNextCode() {
+        return random.nextCode();
+    }
+
+    @Benchmark
+    public String sequenceNextCode() {
+        return sequence.nextCode();
+    }
+
+    private static final class InMemoryAllocator extends IdBlockAllocator {
+
+        private long next = 1;
+
+        InMemoryAllocator() {
+            super(null, null);
+        }
+
+        @Override
+        public long allocate(String name, int size) {
+            long start = next;
+            next += size;
+            return start;
+        }
+    }
+}
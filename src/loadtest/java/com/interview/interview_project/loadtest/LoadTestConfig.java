@@ -0,0 +1,72 @@
+package com.interview.interview_project.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ * {@code modes} lists the request thread modes to run, one after the other against a fresh
+ * application: {@code platform} (Tomcat's fixed pool of {@code serverMaxThreads} threads)
+ * and/or {@code virtual} (a virtual thread per request).
+ */
+record LoadTestConfig(
+        List<String> modes,
+        int serverMaxThreads,
+        int links,
+        double zipfExponent,
+        Duration warmup,
+        Duration duration,
+        double redirectRate,
+        double createRate,
+        double statsRate,
+        Duration probeInterval,
+        String datasourceUrl,
+        String datasourceUsername,
+        String datasourcePassword,
+        double redirectMaxP99Millis,
+        double createMaxP99Millis,
+        double statsMaxP99Millis,
+        double pipelineMaxLagP99Millis,
+        double minThroughputRatio,
+        double maxErrorRate,
+        Path resultFile) {
+
+    static LoadTestConfig fromSystemProperties() {
+        List<String> modes = Arrays.stream(System.getProperty("loadtest.modes", "platform").split(","))
+                .map(String::trim)
+                .toList();
+        for (String mode : modes) {
+            if (!mode.equals("platform") && !mode.equals("virtual")) {
+                throw new IllegalArgumentException("Unknown loadtest mode: " + mode);
+            }
+        }
+        return new LoadTestConfig(
+                modes,
+                Integer.getInteger("loadtest.server.max-threads", 200),
+                Integer.getInteger("loadtest.links", 10_000),
+                doubleProperty("loadtest.zipf-exponent", 1.1),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT60S")),
+                doubleProperty("loadtest.redirect.rate", 2000),
+                doubleProperty("loadtest.create.rate", 50),
+                doubleProperty("loadtest.stats.rate", 5),
+                Duration.parse(System.getProperty("loadtest.probe-interval", "PT1S")),
+                System.getProperty("loadtest.datasource.url"),
+                System.getProperty("loadtest.datasource.username", "postgres"),
+                System.getProperty("loadtest.datasource.password", "postgres"),
+                doubleProperty("loadtest.redirect.max-p99-ms", 50),
+                doubleProperty("loadtest.create.max-p99-ms", 250),
+                doubleProperty("loadtest.stats.max-p99-ms", 500),
+                doubleProperty("loadtest.pipeline.max-lag-p99-ms", 3000),
+                doubleProperty("loadtest.min-throughput-ratio", 0.95),
+                doubleProperty("loadtest.max-error-rate", 0.001),
+                Path.of(System.getProperty("loadtest.result-file", "target/loadtest-result.json")));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
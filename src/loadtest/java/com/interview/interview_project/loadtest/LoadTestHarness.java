@@ -0,0 +1,400 @@
+package com.interview.interview_project.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.interview.interview_project.FiverrShortlinksApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * End-to-end load test. Boots the application on a random port, seeds links over HTTP,
+ * then drives redirects (Zipfian over the seeded links), link creation and stats pages
+ * concurrently, each at a fixed open-loop rate. Latency is measured from each request's
+ * scheduled start, so a stalled server shows up as latency rather than as fewer requests.
+ * <p>
+ * A probe link measures click pipeline lag: the time from a redirect until the click
+ * shows up in GET /stats. With several request thread modes configured, the same run is
+ * repeated per mode and summarized side by side. The process exits with status 1 if any
+ * threshold in {@link LoadTestConfig} is breached in any mode.
+ */
+public final class LoadTestHarness {
+
+    private static final String PROBE_URL = "https://fiverr.com/loadtest/probe";
+    private static final int SEED_CHUNK = 1000;
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong createdLinks = new AtomicLong();
+
+    private LoadTestHarness(LoadTestConfig config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode results = objectMapper.createObjectNode();
+        boolean passed = true;
+        for (String mode : config.modes()) {
+            System.out.printf("%n== %s request threads ==%n", mode);
+            try (ConfigurableApplicationContext context = startApplication(config, mode)) {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                ObjectNode result = new LoadTestHarness(config, "http://localhost:" + port).run();
+                results.set(mode, result);
+                passed &= result.path("breaches").isEmpty();
+            }
+        }
+        if (config.modes().size() > 1) {
+            printComparison(results);
+        }
+
+        Files.createDirectories(config.resultFile().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(config.resultFile().toFile(), results);
+        System.out.println("Results written to " + config.resultFile());
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config, String mode) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--server.tomcat.threads.max=" + config.serverMaxThreads(),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--spring.main.banner-mode=off",
+                "--shortlinks.journal.dir=target/loadtest-journal/" + mode + "-" + UUID.randomUUID(),
+                "--shortlinks.short-code.secret=24061",
+                "--logging.level.root=WARN"));
+        if (config.datasourceUrl() != null) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=" + config.datasourceUrl(),
+                    "--spring.datasource.username=" + config.datasourceUsername(),
+                    "--spring.datasource.password=" + config.datasourcePassword(),
+                    "--spring.jpa.hibernate.ddl-auto=update"));
+        } else {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop"));
+        }
+        return new SpringApplicationBuilder(FiverrShortlinksApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private ObjectNode run() throws Exception {
+        // Created first so it has the lowest id and is the first entry of /stats?after=.
+        String probeCode = createLink(PROBE_URL);
+        String[] codes = seedLinks(config.links());
+        ZipfSampler zipf = new ZipfSampler(codes.length, config.zipfExponent());
+        System.out.printf("Seeded %d links, warming up for %s%n", codes.length, config.warmup());
+
+        runPhase(config.warmup(), codes, zipf, probeCode);
+        System.out.printf("Measuring for %s%n", config.duration());
+        PhaseResult result = runPhase(config.duration(), codes, zipf, probeCode);
+
+        return report(result, result.breaches(config));
+    }
+
+    private PhaseResult runPhase(Duration duration, String[] codes, ZipfSampler zipf, String probeCode)
+            throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        OperationResult redirects = new OperationResult("redirect", config.redirectRate(), duration);
+        OperationResult creates = new OperationResult("create", config.createRate(), duration);
+        OperationResult stats = new OperationResult("stats", config.statsRate(), duration);
+        Histogram lag = new ConcurrentHistogram(3);
+        LongAdder probeTimeouts = new LongAdder();
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Thread> drivers = List.of(
+                    drive(redirects, end, requests, () -> status(click(codes[zipf.next()])) == 302),
+                    drive(creates, end, requests, () -> status(post("/links", "{\"targetUrl\": \""
+                            + "https://fiverr.com/loadtest/new/" + createdLinks.incrementAndGet() + "\"}")) == 201),
+                    drive(stats, end, requests, () -> status(get("/stats?page="
+                            + ThreadLocalRandom.current().nextInt(10) + "&size=20")) == 200),
+                    Thread.ofPlatform().name("loadtest-probe")
+                            .start(() -> probe(probeCode, end, lag, probeTimeouts)));
+            for (Thread driver : drivers) {
+                driver.join();
+            }
+        }
+        return new PhaseResult(List.of(redirects, creates, stats), lag, probeTimeouts.sum());
+    }
+
+    /**
+     * Issues {@code operation} at the configured rate until {@code end}, each call on its own
+     * virtual thread. Latency is recorded from the scheduled start time.
+     */
+    private Thread drive(OperationResult result, long end, ExecutorService requests, BooleanSupplier operation) {
+        return Thread.ofPlatform().name("loadtest-" + result.name).start(() -> {
+            if (result.targetRate <= 0) {
+                return;
+            }
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / result.targetRate);
+            for (long next = System.nanoTime(); next < end; next += interval) {
+                long wait;
+                while ((wait = next - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long scheduled = next;
+                requests.execute(() -> {
+                    boolean ok;
+                    try {
+                        ok = operation.getAsBoolean();
+                    } catch (RuntimeException e) {
+                        ok = false;
+                    }
+                    result.latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+                    result.completed.increment();
+                    if (!ok) {
+                        result.errors.increment();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Clicks the probe link, then polls /stats until the click is counted. A click still
+     * not counted after {@code PROBE_TIMEOUT} is counted as a timeout rather than recorded
+     * as a lag sample, since its real lag is unknown.
+     */
+    private void probe(String probeCode, long end, Histogram lagMillis, LongAdder timeouts) {
+        while (System.nanoTime() < end) {
+            try {
+                long before = probeClicks();
+                long clicked = System.nanoTime();
+                click(probeCode);
+                long deadline = clicked + PROBE_TIMEOUT.toNanos();
+                boolean counted;
+                while (!(counted = probeClicks() > before) && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                if (counted) {
+                    lagMillis.recordValue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - clicked));
+                } else {
+                    timeouts.increment();
+                }
+                Thread.sleep(config.probeInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Probe failed: " + e);
+            }
+        }
+    }
+
+    private long probeClicks() throws IOException {
+        JsonNode page = objectMapper.readTree(get("/stats?after=&size=1").body());
+        return page.path("content").path(0).path("totalClicks").asLong();
+    }
+
+    private String createLink(String targetUrl) throws IOException {
+        HttpResponse<String> response = post("/links", "{\"targetUrl\": \"" + targetUrl + "\"}");
+        return shortCode(objectMapper.readTree(response.body()).path("shortUrl").asText());
+    }
+
+    private String[] seedLinks(int count) throws IOException {
+        String[] codes = new String[count];
+        for (int start = 0; start < count; start += SEED_CHUNK) {
+            ArrayNode body = objectMapper.createArrayNode();
+            for (int i = start; i < Math.min(count, start + SEED_CHUNK); i++) {
+                body.addObject().put("targetUrl", "https://fiverr.com/loadtest/seed/" + i);
+            }
+            JsonNode results = objectMapper.readTree(post("/links/bulk", body.toString()).body());
+            for (int i = 0; i < results.size(); i++) {
+                codes[start + i] = shortCode(results.get(i).path("shortUrl").asText());
+            }
+        }
+        return codes;
+    }
+
+    private static String shortCode(String shortUrl) {
+        return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Redirects from a random client address, as a proxy in front of the service would
+     * report it, so the click throttle treats each request as a different visitor.
+     */
+    private HttpResponse<String> click(String shortCode) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String client = "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(1, 255);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + shortCode))
+                .header("X-Forwarded-For", client)
+                .GET()
+                .build());
+    }
+
+    private HttpResponse<String> get(String path) {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+    }
+
+    private HttpResponse<String> post(String path, String json) {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int status(HttpResponse<String> response) {
+        return response.statusCode();
+    }
+
+    private ObjectNode report(PhaseResult result, List<String> breaches) {
+        System.out.printf("%n%-9s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "target/s", "actual/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        ObjectNode json = objectMapper.createObjectNode();
+        for (OperationResult operation : result.operations()) {
+            Histogram h = operation.latencyMicros;
+            System.out.printf("%-9s %10.1f %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name,
+                    operation.targetRate, operation.throughput(), operation.errors.sum(),
+                    millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9), h.getMaxValue() / 1000.0);
+            ObjectNode node = json.putObject(operation.name);
+            node.put("targetRate", operation.targetRate);
+            node.put("throughput", operation.throughput());
+            node.put("requests", operation.completed.sum());
+            node.put("errors", operation.errors.sum());
+            node.put("p50Ms", millis(h, 50));
+            node.put("p90Ms", millis(h, 90));
+            node.put("p99Ms", millis(h, 99));
+            node.put("p999Ms", millis(h, 99.9));
+            node.put("maxMs", h.getMaxValue() / 1000.0);
+        }
+        Histogram lag = result.pipelineLagMillis();
+        System.out.printf("%npipeline lag: samples %d, p50 %d ms, p99 %d ms, max %d ms, timeouts %d%n",
+                lag.getTotalCount(), lag.getValueAtPercentile(50), lag.getValueAtPercentile(99), lag.getMaxValue(),
+                result.probeTimeouts());
+        ObjectNode lagNode = json.putObject("pipelineLag");
+        lagNode.put("samples", lag.getTotalCount());
+        lagNode.put("p50Ms", lag.getValueAtPercentile(50));
+        lagNode.put("p99Ms", lag.getValueAtPercentile(99));
+        lagNode.put("maxMs", lag.getMaxValue());
+        lagNode.put("timeouts", result.probeTimeouts());
+        breaches.forEach(json.putArray("breaches")::add);
+
+        System.out.println(breaches.isEmpty() ? "\nPASSED" : "\nFAILED:\n  " + String.join("\n  ", breaches));
+        return json;
+    }
+
+    private static void printComparison(ObjectNode results) {
+        System.out.printf("%n%-9s %-9s %10s %8s %9s %9s %9s%n",
+                "operation", "mode", "actual/s", "errors", "p50 ms", "p99 ms", "max ms");
+        for (String operation : List.of("redirect", "create", "stats")) {
+            results.fields().forEachRemaining(mode -> {
+                JsonNode node = mode.getValue().path(operation);
+                System.out.printf("%-9s %-9s %10.1f %8d %9.2f %9.2f %9.2f%n", operation, mode.getKey(),
+                        node.path("throughput").asDouble(), node.path("errors").asLong(),
+                        node.path("p50Ms").asDouble(), node.path("p99Ms").asDouble(), node.path("maxMs").asDouble());
+            });
+        }
+    }
+
+    private static double millis(Histogram microsHistogram, double percentile) {
+        return microsHistogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class OperationResult {
+
+        final String name;
+        final double targetRate;
+        final Duration duration;
+        final Histogram latencyMicros = new ConcurrentHistogram(3);
+        final LongAdder completed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        OperationResult(String name, double targetRate, Duration duration) {
+            this.name = name;
+            this.targetRate = targetRate;
+            this.duration = duration;
+        }
+
+        double throughput() {
+            return completed.sum() / (duration.toMillis() / 1000.0);
+        }
+
+        double errorRate() {
+            long total = completed.sum();
+            return total == 0 ? 0 : (double) errors.sum() / total;
+        }
+    }
+
+    private record PhaseResult(List<OperationResult> operations, Histogram pipelineLagMillis, long probeTimeouts) {
+
+        List<String> breaches(LoadTestConfig config) {
+            List<String> breaches = new ArrayList<>();
+            for (OperationResult operation : operations) {
+                double maxP99 = switch (operation.name) {
+                    case "redirect" -> config.redirectMaxP99Millis();
+                    case "create" -> config.createMaxP99Millis();
+                    default -> config.statsMaxP99Millis();
+                };
+                double p99 = millis(operation.latencyMicros, 99);
+                if (p99 > maxP99) {
+                    breaches.add(String.format("%s p99 %.2f ms > %.2f ms", operation.name, p99, maxP99));
+                }
+                if (operation.throughput() < operation.targetRate * config.minThroughputRatio()) {
+                    breaches.add(String.format("%s throughput %.1f/s < %.0f%% of %.1f/s", operation.name,
+                            operation.throughput(), config.minThroughputRatio() * 100, operation.targetRate));
+                }
+                if (operation.errorRate() > config.maxErrorRate()) {
+                    breaches.add(String.format("%s error rate %.4f > %.4f", operation.name,
+                            operation.errorRate(), config.maxErrorRate()));
+                }
+            }
+            long lagP99 = pipelineLagMillis.getValueAtPercentile(99);
+            if (pipelineLagMillis.getTotalCount() == 0 || lagP99 > config.pipelineMaxLagP99Millis()) {
+                breaches.add(String.format("pipeline lag p99 %d ms > %.0f ms (%d samples)", lagP99,
+                        config.pipelineMaxLagP99Millis(), pipelineLagMillis.getTotalCount()));
+            }
+            if (probeTimeouts > 0) {
+                breaches.add(String.format("pipeline lag: %d probe clicks not counted within %d s",
+                        probeTimeouts, PROBE_TIMEOUT.toSeconds()));
+            }
+            return breaches;
+        }
+    }
+}
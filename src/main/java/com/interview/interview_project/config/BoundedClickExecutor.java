@@ -0,0 +1,176 @@
+package com.interview.interview_project.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for click processing. Tasks run on their own thread (virtual by default),
+ * but at most {@code maxConcurrency} run at once; the rest wait for a permit. The
+ * number of accepted-but-unfinished tasks is capped at {@code maxPending}, beyond
+ * which the {@link RejectionPolicy} applies. On shutdown, new tasks are refused
+ * and pending ones are given up to {@code drainTimeout} to finish.
+ * <p>
+ * A task that never runs, because it was dropped or was still waiting for a permit at
+ * shutdown, is cancelled if it is a {@link Future}, so callers waiting on it see the
+ * cancellation instead of waiting forever.
+ */
+public class BoundedClickExecutor implements TaskExecutor, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedClickExecutor.class);
+
+    /**
+     * Stops after the web server has stopped taking requests and before the
+     * click ingestion pipeline does its final flush.
+     */
+    static final int PHASE = Integer.MAX_VALUE - 1536;
+
+    public enum RejectionPolicy {
+        /** Discard the click and count it (cancelling it if it is a {@link Future}). */
+        DROP,
+        /** Run the task on the submitting thread. */
+        CALLER_RUNS,
+        /** Throw {@link RejectedExecutionException} to the submitter. */
+        ABORT
+    }
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxPending;
+    private final RejectionPolicy rejectionPolicy;
+    private final Duration drainTimeout;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedCounter;
+
+    private volatile boolean running;
+
+    public BoundedClickExecutor(ExecutorService delegate, int maxConcurrency, int maxPending,
+                                RejectionPolicy rejectionPolicy, Duration drainTimeout,
+                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxPending = maxPending;
+        this.rejectionPolicy = rejectionPolicy;
+        this.drainTimeout = drainTimeout;
+
+        Gauge.builder("shortlinks.click.executor.queued", this, BoundedClickExecutor::queuedCount)
+                .description("Click tasks waiting for a concurrency permit")
+                .register(meterRegistry);
+        Gauge.builder("shortlinks.click.executor.in_flight", inFlight, AtomicInteger::get)
+                .description("Click tasks currently running")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("shortlinks.click.executor.rejected")
+                .description("Click tasks rejected because the executor was full or stopping")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!running) {
+            reject(task);
+            return;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            reject(task);
+            return;
+        }
+        try {
+            delegate.execute(() -> runWithPermit(task));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            reject(task);
+        }
+    }
+
+    public int queuedCount() {
+        return Math.max(0, pending.get() - inFlight.get());
+    }
+
+    public int inFlightCount() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (pending.get() > 0) {
+            log.warn("Click executor stopped with {} tasks still pending", pending.get());
+        }
+        delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void runWithPermit(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            pending.decrementAndGet();
+            cancel(task);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        inFlight.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+            pending.decrementAndGet();
+        }
+    }
+
+    private void reject(Runnable task) {
+        rejectedCounter.increment();
+        switch (rejectionPolicy) {
+            case DROP -> {
+                log.debug("Dropped click task: executor full or stopping");
+                cancel(task);
+            }
+            case CALLER_RUNS -> task.run();
+            case ABORT -> throw new RejectedExecutionException("Click executor is full or stopping");
+        }
+    }
+
+    private static void cancel(Runnable task) {
+        if (task instanceof Future<?> future) {
+            future.cancel(false);
+        }
+    }
+}
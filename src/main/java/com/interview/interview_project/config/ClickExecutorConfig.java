@@ -0,0 +1,36 @@
+package com.interview.interview_project.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Dedicated executor for click processing, so click storms can't exhaust or
+ * queue unboundedly on Spring's shared async executor.
+ */
+@Configuration
+public class ClickExecutorConfig {
+
+    public static final String CLICK_EXECUTOR = "clickExecutor";
+
+    @Bean(name = CLICK_EXECUTOR)
+    public BoundedClickExecutor clickExecutor(
+            @Value("${shortlinks.click-executor.virtual-threads:true}") boolean virtualThreads,
+            @Value("${shortlinks.click-executor.max-concurrency:200}") int maxConcurrency,
+            @Value("${shortlinks.click-executor.max-pending:10000}") int maxPending,
+            @Value("${shortlinks.click-executor.rejection-policy:DROP}") BoundedClickExecutor.RejectionPolicy rejectionPolicy,
+            @Value("${shortlinks.click-executor.drain-timeout:30s}") Duration drainTimeout,
+            MeterRegistry meterRegistry) {
+        ExecutorService delegate = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("click-", 0).factory())
+                : Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory("click-"));
+        return new BoundedClickExecutor(delegate, maxConcurrency, maxPending, rejectionPolicy,
+                drainTimeout, meterRegistry);
+    }
+}
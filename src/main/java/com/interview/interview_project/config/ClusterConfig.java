@@ -0,0 +1,46 @@
+package com.interview.interview_project.config;
+
+import com.interview.interview_project.service.ClusterEventBus;
+import com.interview.interview_project.service.InProcessClusterEventBus;
+import com.interview.interview_project.service.PostgresClusterEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Selects how nodes tell each other about new links and committed clicks:
+ * {@code in-process} (default) for a single node, or {@code postgres} for replicas
+ * sharing one database. Short code ranges need no setting: every node already leases
+ * its own blocks from the id_blocks table.
+ */
+@Configuration
+public class ClusterConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterConfig.class);
+
+    @Bean
+    public ClusterEventBus clusterEventBus(
+            DataSource dataSource,
+            @Value("${shortlinks.cluster.event-bus:in-process}") String eventBus,
+            @Value("${shortlinks.cluster.node-id:}") String nodeId,
+            @Value("${shortlinks.cluster.poll-interval:500ms}") Duration pollInterval,
+            @Value("${spring.datasource.url:}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password) {
+        return switch (eventBus) {
+            case "in-process" -> new InProcessClusterEventBus();
+            case "postgres" -> {
+                String node = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+                log.info("Cluster mode: node {} exchanging events over Postgres LISTEN/NOTIFY", node);
+                yield new PostgresClusterEventBus(dataSource, url, username, password, node, pollInterval);
+            }
+            default -> throw new IllegalArgumentException("Unknown cluster event bus: " + eventBus);
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.interview.interview_project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Connection pools: the primary ({@code spring.datasource.*}), a small primary pool for
+ * click ingest batches, and an optional read replica for stats. Everything injecting a
+ * {@link DataSource}, JPA included, gets the {@link ReadWriteRoutingDataSource} in front of
+ * them, which uses the primary unless code opts into another route.
+ * <p>
+ * The ingest and replica pools aren't default candidates, so Boot's health check only
+ * covers the primary: a lagging or unreachable replica is handled by falling back, not by
+ * taking the node out of rotation. Their pool metrics are registered here instead.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    public HikariDataSource ingestDataSource(
+            DataSourceProperties properties,
+            @Value("${shortlinks.datasource.ingest.maximum-pool-size:2}") int maximumPoolSize,
+            MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("ingest");
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            DataSourceProperties properties,
+            @Value("${shortlinks.datasource.replica.url:}") String url,
+            @Value("${shortlinks.datasource.replica.username:}") String username,
+            @Value("${shortlinks.datasource.replica.password:}") String password,
+            @Value("${shortlinks.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${shortlinks.datasource.replica.max-lag:5s}") Duration maxLag,
+            @Value("${shortlinks.datasource.replica.lag-query:}") String lagQuery,
+            MeterRegistry meterRegistry) {
+        HikariDataSource replica = null;
+        if (!url.isBlank()) {
+            replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(url)
+                    .username(username.isBlank() ? properties.determineUsername() : username)
+                    .password(username.isBlank() ? properties.determinePassword() : password)
+                    .build();
+            replica.setPoolName("replica");
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+        return new ReplicaLagMonitor(replica, lagQuery.isBlank() ? ReplicaLagMonitor.POSTGRES_LAG_QUERY : lagQuery,
+                maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 @Qualifier("ingestDataSource") HikariDataSource ingestDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primaryDataSource, ingestDataSource, replicaLagMonitor.dataSource(), replicaLagMonitor::isAvailable));
+    }
+}
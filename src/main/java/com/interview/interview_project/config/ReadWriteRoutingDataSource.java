@@ -0,0 +1,81 @@
+package com.interview.interview_project.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Picks the connection pool for the current thread's {@link Route}. Code opts into a pool
+ * with {@link #route(Route)}; everything else, including redirects, uses the primary.
+ * Replica routes fall back to the primary while the replica isn't usable (not
+ * configured, lagging, or unreachable).
+ * <p>
+ * The route is read when a connection is first needed, so this data source sits behind a
+ * {@code LazyConnectionDataSourceProxy}: a transaction begun before the scope opened still
+ * gets its connection from the scope's pool, as long as it hasn't run a statement yet. A
+ * connection already held (an outer transaction, or the request's open EntityManager) is
+ * kept, so a scope never splits one unit of work across pools.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        /** Reads and writes that must see the latest data. */
+        PRIMARY,
+        /** Read-only work that tolerates replication lag, e.g. stats. */
+        REPLICA,
+        /** Click batch writes, on a pool of their own. */
+        INGEST
+    }
+
+    /** Restores the previous route when closed. */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final ThreadLocal<Route> CURRENT = new ThreadLocal<>();
+
+    private final BooleanSupplier replicaAvailable;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource ingest, DataSource replica,
+                                      BooleanSupplier replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.INGEST, ingest);
+        if (replica != null) {
+            targets.put(Route.REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes connections this thread acquires to {@code route} until the scope is closed.
+     */
+    public static Scope route(Route route) {
+        Route previous = CURRENT.get();
+        CURRENT.set(route);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = CURRENT.get();
+        if (route == null || (route == Route.REPLICA && !replicaAvailable.getAsBoolean())) {
+            return Route.PRIMARY;
+        }
+        return route;
+    }
+}
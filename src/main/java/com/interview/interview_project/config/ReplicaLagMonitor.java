@@ -0,0 +1,104 @@
+package com.interview.interview_project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Tracks how far the read replica trails the primary, by running a lag query on it every
+ * {@code shortlinks.datasource.replica.lag-check-interval}. The replica counts as available
+ * only while the last check succeeded and reported at most {@code maxLag}; until the first
+ * check, and with no replica configured, it is unavailable and replica reads go to the primary.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Seconds since the last replayed transaction on a Postgres standby, or 0 when it has
+     * replayed everything received (an idle primary sends nothing, which isn't lag) or when
+     * it isn't a standby at all.
+     */
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery()"
+            + " OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private static final int QUERY_TIMEOUT_SECONDS = 1;
+
+    private final HikariDataSource replica;
+    private final JdbcTemplate jdbcTemplate;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    private volatile boolean available;
+    private volatile double lagSeconds = Double.NaN;
+
+    /**
+     * @param replica the replica pool, or null when no replica is configured; closed with the monitor
+     */
+    public ReplicaLagMonitor(HikariDataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.jdbcTemplate = replica != null ? new JdbcTemplate(replica) : null;
+        if (jdbcTemplate != null) {
+            jdbcTemplate.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+        }
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+
+        Gauge.builder("shortlinks.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica at the last check (NaN when unknown)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("shortlinks.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .description("Whether replica reads go to the replica (1) or fall back to the primary (0)")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shortlinks.datasource.replica.lag-check-interval:1s}")
+    public void check() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        boolean wasAvailable = available;
+        try {
+            Double lag = jdbcTemplate.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag != null ? lag : Double.NaN;
+            available = lag != null && lag <= maxLagSeconds;
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            available = false;
+            if (wasAvailable) {
+                log.warn("Replica lag check failed; reading from the primary", e);
+            }
+            return;
+        }
+        if (wasAvailable && !available) {
+            log.warn("Replica lag {}s exceeds {}s; reading from the primary", lagSeconds, maxLagSeconds);
+        } else if (!wasAvailable && available) {
+            log.info("Replica lag {}s; reading stats from the replica", lagSeconds);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /** The replica pool, or null when no replica is configured. */
+    public DataSource dataSource() {
+        return replica;
+    }
+
+    public void close() {
+        if (replica != null) {
+            replica.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.interview.interview_project.config;
+
+import com.interview.interview_project.service.IdBlockAllocator;
+import com.interview.interview_project.service.RandomShortCodeGenerator;
+import com.interview.interview_project.service.SequenceShortCodeGenerator;
+import com.interview.interview_project.service.ShortCodeGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the short code strategy: {@code sequence} (default) for block-allocated,
+ * collision-free codes, or {@code random} for the original random codes with an
+ * existence check per attempt.
+ * <p>
+ * Scrambled sequence codes are only as hard to enumerate as {@code shortlinks.short-code.secret}
+ * is to guess, so startup fails while it is unset (0); set {@code scramble=false} to opt out.
+ */
+@Configuration
+public class ShortCodeGeneratorConfig {
+
+    @Bean
+    public ShortCodeGenerator shortCodeGenerator(
+            IdBlockAllocator idBlockAllocator,
+            @Value("${shortlinks.short-code.strategy:sequence}") String strategy,
+            @Value("${shortlinks.short-code.block-size:1000}") int blockSize,
+            @Value("${shortlinks.short-code.scramble:true}") boolean scramble,
+            @Value("${shortlinks.short-code.secret:0}") long secret) {
+        return switch (strategy) {
+            case "sequence" -> {
+                if (scramble && secret == 0) {
+                    throw new IllegalStateException("shortlinks.short-code.secret must be set to a random non-zero value"
+                            + " (e.g. SHORTLINKS_SHORT_CODE_SECRET); with the default, codes can be enumerated");
+                }
+                yield new SequenceShortCodeGenerator(idBlockAllocator, blockSize, scramble, secret);
+            }
+            case "random" -> new RandomShortCodeGenerator();
+            default -> throw new IllegalArgumentException("Unknown short code strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.interview.interview_project.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Timeout for async request handling, which here means {@code /stats/export}: its
+ * {@code StreamingResponseBody} runs after the request thread returns, and without an
+ * explicit limit it gets the servlet container's default (30s on Tomcat), which cuts off
+ * any export of more than a few hundred thousand links. Past the timeout the response is
+ * completed; an export still writing then fails on its next write and releases its cursor.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final Duration asyncTimeout;
+
+    public WebConfig(@Value("${shortlinks.stats.export.timeout:30m}") Duration asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeout.toMillis());
+    }
+}
@@ -1,30 +1,64 @@
 package com.interview.interview_project.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.interview_project.dto.BulkLinkResponse;
 import com.interview.interview_project.dto.CreateLinkRequest;
 import com.interview.interview_project.dto.CreateLinkResponse;
+import com.interview.interview_project.dto.CursorPage;
 import com.interview.interview_project.dto.LinkStatsResponse;
 import com.interview.interview_project.model.Link;
+import com.interview.interview_project.service.BulkCreateItem;
+import com.interview.interview_project.service.BulkCreateResult;
+import com.interview.interview_project.service.BulkLinkService;
+import com.interview.interview_project.service.CachedLink;
+import com.interview.interview_project.service.ClickContext;
+import com.interview.interview_project.service.ClickThrottle;
 import com.interview.interview_project.service.ClickTrackingService;
 import com.interview.interview_project.service.LinkService;
+import com.interview.interview_project.service.StatsExportService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.net.URI;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 public class LinkController {
 
     private final LinkService linkService;
     private final ClickTrackingService clickTrackingService;
+    private final ClickThrottle clickThrottle;
+    private final StatsExportService statsExportService;
+    private final BulkLinkService bulkLinkService;
+    private final ObjectMapper objectMapper;
 
-    public LinkController(LinkService linkService, ClickTrackingService clickTrackingService) {
+    public LinkController(LinkService linkService, ClickTrackingService clickTrackingService,
+                          ClickThrottle clickThrottle, StatsExportService statsExportService,
+                          BulkLinkService bulkLinkService, ObjectMapper objectMapper) {
         this.linkService = linkService;
         this.clickTrackingService = clickTrackingService;
+        this.clickThrottle = clickThrottle;
+        this.statsExportService = statsExportService;
+        this.bulkLinkService = bulkLinkService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -36,26 +70,84 @@ public class LinkController {
                                                          HttpServletRequest httpRequest) {
         Link link = linkService.createShortLink(request.getTargetUrl());
 
-        String baseUrl = httpRequest.getScheme() + "://" + httpRequest.getServerName()
-                + ":" + httpRequest.getServerPort();
-        String shortUrl = baseUrl + "/" + link.getShortCode();
+        String shortUrl = baseUrl(httpRequest) + "/" + link.getShortCode();
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new CreateLinkResponse(shortUrl, link.getTargetUrl()));
     }
 
     /**
-     * GET /:shortCode - Redirect to target URL and track the click asynchronously.
+     * POST /links/bulk - Create short links for a JSON array of {@code {"targetUrl": ...}}.
+     * Returns one result per input item, in order. Idempotent per URL like POST /links.
+     */
+    @PostMapping(value = "/links/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkLinkResponse>> createLinks(@RequestBody List<CreateLinkRequest> requests,
+                                                              HttpServletRequest httpRequest) {
+        List<String> targetUrls = requests.stream()
+                .map(request -> request == null ? null : request.getTargetUrl())
+                .toList();
+        return ResponseEntity.ok(toBulkResponses(bulkLinkService.createShortLinks(targetUrls), baseUrl(httpRequest)));
+    }
+
+    /**
+     * POST /links/bulk with an NDJSON body (one {@code {"targetUrl": ...}} per line), for
+     * catalog imports too large to send as a single JSON array. Lines are read and created
+     * a chunk at a time, and each chunk's results are streamed back as NDJSON (one result
+     * per input line, in order) before the next chunk is read. Malformed lines come back
+     * as INVALID items whose error names the line. Blank lines are skipped. Chunks already
+     * streamed stay committed if a later one fails.
+     */
+    @PostMapping(value = "/links/bulk", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> createLinksNdjson(HttpServletRequest httpRequest) {
+        String baseUrl = baseUrl(httpRequest);
+        StreamingResponseBody body = out -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(httpRequest.getInputStream(), StandardCharsets.UTF_8))) {
+                AtomicInteger lineNumber = new AtomicInteger();
+                bulkLinkService.createShortLinks(
+                        reader.lines()
+                                .map(line -> parseLine(line, lineNumber.incrementAndGet()))
+                                .filter(Objects::nonNull)
+                                .iterator(),
+                        results -> {
+                            try {
+                                for (BulkLinkResponse response : toBulkResponses(results, baseUrl)) {
+                                    out.write(objectMapper.writeValueAsBytes(response));
+                                    out.write('\n');
+                                }
+                                out.flush();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * GET /:shortCode - Redirect to target URL and track the click asynchronously,
+     * unless {@link ClickThrottle} suppresses it as a duplicate or excess click.
+     * Writes the cached Location value straight to the response, skipping the
+     * ResponseEntity and header map a 302 would otherwise allocate.
      */
     @GetMapping("/{shortCode}")
-    public ResponseEntity<Void> redirect(@PathVariable String shortCode) {
-        Link link = linkService.getByShortCode(shortCode);
+    public void redirect(@PathVariable String shortCode, HttpServletRequest request,
+                         HttpServletResponse response) {
+        CachedLink link = linkService.resolve(shortCode);
 
-        clickTrackingService.processClick(link);
+        ClickContext click = ClickContext.of(link.id(), request.getRemoteAddr(),
+                request.getHeader(HttpHeaders.USER_AGENT), System.currentTimeMillis());
+        if (clickThrottle.admit(click)) {
+            clickTrackingService.processClick(click);
+        }
 
-        return ResponseEntity.status(HttpStatus.FOUND)
-                .location(URI.create(link.getTargetUrl()))
-                .build();
+        response.setStatus(HttpServletResponse.SC_FOUND);
+        response.setHeader(HttpHeaders.LOCATION, link.location());
     }
 
     /**
@@ -74,4 +166,79 @@ public class LinkController {
         Page<LinkStatsResponse> stats = linkService.getStats(pageable);
         return ResponseEntity.ok(stats);
     }
+
+    /**
+     * GET /stats?after=... - Keyset-paginated analytics. Pass an empty {@code after} for the
+     * first page, then the returned {@code nextCursor}. Skips the total count.
+     */
+    @GetMapping(value = "/stats", params = "after")
+    public ResponseEntity<CursorPage<LinkStatsResponse>> getStatsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        if (size < 1 || size > 100) {
+            throw new IllegalArgumentException("Page size must be between 1 and 100");
+        }
+
+        return ResponseEntity.ok(linkService.getStatsAfter(after, size));
+    }
+
+    /**
+     * GET /stats/export - Streams stats for all links as NDJSON (one link per line) or CSV
+     * (one row per link and month). Optional {@code from}/{@code to} months (yyyy-MM) limit
+     * the monthly earnings included.
+     */
+    @GetMapping("/stats/export")
+    public ResponseEntity<StreamingResponseBody> exportStats(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+
+        StatsExportService.Format exportFormat = StatsExportService.Format.parse(format);
+        YearMonth fromMonth = parseMonth("from", from);
+        YearMonth toMonth = parseMonth("to", to);
+
+        StreamingResponseBody body = out -> statsExportService.export(exportFormat, fromMonth, toMonth, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"stats." + exportFormat.name().toLowerCase() + "\"")
+                .body(body);
+    }
+
+    /** The request on one NDJSON line, null for a blank line. */
+    private BulkCreateItem parseLine(String line, int lineNumber) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            CreateLinkRequest request = objectMapper.readValue(line, CreateLinkRequest.class);
+            return BulkCreateItem.of(request == null ? null : request.getTargetUrl());
+        } catch (JsonProcessingException e) {
+            return BulkCreateItem.unreadable("malformed JSON on line " + lineNumber + ": " + e.getOriginalMessage());
+        }
+    }
+
+    private static List<BulkLinkResponse> toBulkResponses(List<BulkCreateResult> results, String baseUrl) {
+        return results.stream()
+                .map(result -> new BulkLinkResponse(result.targetUrl(),
+                        result.link() == null ? null : baseUrl + "/" + result.link().getShortCode(),
+                        result.status().name(), result.error()))
+                .toList();
+    }
+
+    private static String baseUrl(HttpServletRequest httpRequest) {
+        return httpRequest.getScheme() + "://" + httpRequest.getServerName() + ":" + httpRequest.getServerPort();
+    }
+
+    private static YearMonth parseMonth(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a month in yyyy-MM format");
+        }
+    }
 }
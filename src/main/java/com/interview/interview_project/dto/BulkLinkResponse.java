@@ -0,0 +1,37 @@
+package com.interview.interview_project.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one URL in a bulk create request: CREATED, EXISTING or INVALID.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkLinkResponse {
+
+    private String targetUrl;
+    private String shortUrl;
+    private String status;
+    private String error;
+
+    public BulkLinkResponse() {
+    }
+
+    public BulkLinkResponse(String targetUrl, String shortUrl, String status, String error) {
+        this.targetUrl = targetUrl;
+        this.shortUrl = shortUrl;
+        this.status = status;
+        this.error = error;
+    }
+
+    public String getTargetUrl() { return targetUrl; }
+    public void setTargetUrl(String targetUrl) { this.targetUrl = targetUrl; }
+
+    public String getShortUrl() { return shortUrl; }
+    public void setShortUrl(String shortUrl) { this.shortUrl = shortUrl; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
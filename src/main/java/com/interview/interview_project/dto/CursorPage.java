@@ -0,0 +1,27 @@
+package com.interview.interview_project.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is an opaque token to pass
+ * as {@code after} for the following page, or null on the last page.
+ */
+public class CursorPage<T> {
+
+    private List<T> content;
+    private String nextCursor;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
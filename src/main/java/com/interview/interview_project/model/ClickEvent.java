@@ -1,18 +1,23 @@
 package com.interview.interview_project.model;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "click_events", indexes = {
     @Index(name = "idx_click_link_id", columnList = "link_id"),
-    @Index(name = "idx_click_clicked_at", columnList = "clickedAt")
+    @Index(name = "idx_click_clicked_at", columnList = "clickedAt"),
+    // Includes clickedAt because a unique index on a partitioned table must hold the partition key.
+    @Index(name = "idx_click_journal_record", columnList = "journalId, journalOffset, clickedAt", unique = true)
 })
 public class ClickEvent {
 
+    // Sequence with a pooled allocator so Hibernate can batch inserts (IDENTITY can't).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "click_events_seq")
+    @SequenceGenerator(name = "click_events_seq", sequenceName = "click_events_seq", allocationSize = 100)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,8 +29,17 @@ public class ClickEvent {
 
     private Boolean fraudValid;
 
-    @Column(precision = 10, scale = 2)
-    private BigDecimal creditAwarded = BigDecimal.ZERO;
+    /** Credit in micro-cents, see {@link Credits}. */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long creditMicros;
+
+    /**
+     * Where the click was journaled ({@code ClickJournal} id and offset), so a click replayed
+     * after a crash is recognized as already written. Null for clicks that weren't journaled.
+     */
+    private Long journalId;
+    private Long journalOffset;
 
     public ClickEvent() {
     }
@@ -35,6 +49,20 @@ public class ClickEvent {
         this.clickedAt = LocalDateTime.now();
     }
 
+    public ClickEvent(Link link, LocalDateTime clickedAt, boolean fraudValid, long creditMicros) {
+        this.link = link;
+        this.clickedAt = clickedAt;
+        this.fraudValid = fraudValid;
+        this.creditMicros = creditMicros;
+    }
+
+    public ClickEvent(Link link, LocalDateTime clickedAt, boolean fraudValid, long creditMicros,
+                      Long journalId, Long journalOffset) {
+        this(link, clickedAt, fraudValid, creditMicros);
+        this.journalId = journalId;
+        this.journalOffset = journalOffset;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -47,6 +75,12 @@ public class ClickEvent {
     public Boolean getFraudValid() { return fraudValid; }
     public void setFraudValid(Boolean fraudValid) { this.fraudValid = fraudValid; }
 
-    public BigDecimal getCreditAwarded() { return creditAwarded; }
-    public void setCreditAwarded(BigDecimal creditAwarded) { this.creditAwarded = creditAwarded; }
+    public long getCreditMicros() { return creditMicros; }
+    public void setCreditMicros(long creditMicros) { this.creditMicros = creditMicros; }
+
+    public Long getJournalId() { return journalId; }
+    public void setJournalId(Long journalId) { this.journalId = journalId; }
+
+    public Long getJournalOffset() { return journalOffset; }
+    public void setJournalOffset(Long journalOffset) { this.journalOffset = journalOffset; }
 }
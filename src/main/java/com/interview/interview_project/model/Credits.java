@@ -0,0 +1,41 @@
+package com.interview.interview_project.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Credit amounts as a long count of micro-cents (10^-8 USD), so the click pipeline and
+ * the stats rollup add plain longs instead of allocating a BigDecimal per click. Amounts
+ * are stored in BIGINT columns and only become a BigDecimal at the API boundary.
+ * A long holds about 92 billion dollars at this scale.
+ */
+public final class Credits {
+
+    public static final int SCALE = 8;
+    public static final long MICROS_PER_CENT = 1_000_000L;
+    public static final long MICROS_PER_DOLLAR = 100 * MICROS_PER_CENT;
+
+    /** Dollar amounts are shown with at least cent precision, as before. */
+    private static final int DISPLAY_SCALE = 2;
+
+    private Credits() {
+    }
+
+    /**
+     * Converts a dollar amount to micro-cents.
+     *
+     * @throws ArithmeticException if the amount has more than 8 decimal places or overflows a long
+     */
+    public static long fromDollars(BigDecimal dollars) {
+        return dollars.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * Converts micro-cents to dollars, with two decimal places unless finer digits are set.
+     */
+    public static BigDecimal toDollars(long micros) {
+        if (micros % MICROS_PER_CENT == 0) {
+            return BigDecimal.valueOf(micros / MICROS_PER_CENT, DISPLAY_SCALE);
+        }
+        return BigDecimal.valueOf(micros, SCALE).stripTrailingZeros();
+    }
+}
@@ -0,0 +1,33 @@
+package com.interview.interview_project.model;
+
+import jakarta.persistence.*;
+
+/**
+ * High-water mark of a named ID sequence. Nodes reserve blocks of IDs by advancing
+ * {@code nextValue} under a row lock, then hand them out locally without touching the database.
+ */
+@Entity
+@Table(name = "id_blocks")
+public class IdBlock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private long nextValue;
+
+    public IdBlock() {
+    }
+
+    public IdBlock(String name, long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getNextValue() { return nextValue; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+}
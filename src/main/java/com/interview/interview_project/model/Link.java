@@ -1,34 +1,50 @@
 package com.interview.interview_project.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "links", indexes = {
     @Index(name = "idx_short_code", columnList = "shortCode", unique = true),
-    @Index(name = "idx_target_url", columnList = "targetUrl", unique = true)
+    @Index(name = "idx_target_url_hash", columnList = "targetUrlHash", unique = true)
 })
 public class Link {
 
+    // Pooled sequence rather than IDENTITY so bulk creation can batch inserts.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "links_seq")
+    @SequenceGenerator(name = "links_seq", sequenceName = "links_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 10)
     private String shortCode;
 
-    @Column(nullable = false, unique = true, length = 2048)
+    @Column(nullable = false, length = 2048)
     private String targetUrl;
 
+    // Unique key for deduplication instead of an index on the full URL. Nullable only so
+    // the column can be added to an existing table; TargetUrlHashBackfill fills old rows.
+    @Column(length = TargetUrlHash.LENGTH)
+    private String targetUrlHash;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    // Bumped in the same transaction as every link_monthly_stats change for the link, so the
+    // page query that lists links also tells which cached stats snapshots are still current.
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long statsVersion;
+
     public Link() {
     }
 
     public Link(String shortCode, String targetUrl) {
         this.shortCode = shortCode;
         this.targetUrl = targetUrl;
+        this.targetUrlHash = TargetUrlHash.of(targetUrl);
     }
 
     @PrePersist
@@ -43,8 +59,17 @@ public class Link {
     public void setShortCode(String shortCode) { this.shortCode = shortCode; }
 
     public String getTargetUrl() { return targetUrl; }
-    public void setTargetUrl(String targetUrl) { this.targetUrl = targetUrl; }
+    public void setTargetUrl(String targetUrl) {
+        this.targetUrl = targetUrl;
+        this.targetUrlHash = targetUrl == null ? null : TargetUrlHash.of(targetUrl);
+    }
+
+    public String getTargetUrlHash() { return targetUrlHash; }
+    public void setTargetUrlHash(String targetUrlHash) { this.targetUrlHash = targetUrlHash; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public long getStatsVersion() { return statsVersion; }
+    public void setStatsVersion(long statsVersion) { this.statsVersion = statsVersion; }
 }
@@ -0,0 +1,69 @@
+package com.interview.interview_project.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+
+/**
+ * Per-link, per-month click rollup, kept up to date by the click ingestion pipeline
+ * so stats never have to scan click_events.
+ */
+@Entity
+@Table(name = "link_monthly_stats", indexes = {
+    @Index(name = "idx_monthly_stats_link_month", columnList = "link_id, stat_month", unique = true)
+})
+public class LinkMonthlyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "link_id", nullable = false)
+    private Long linkId;
+
+    /** First day of the month this row covers. */
+    @Column(name = "stat_month", nullable = false)
+    private LocalDate month;
+
+    @Column(nullable = false)
+    private long clickCount;
+
+    @Column(nullable = false)
+    private long validClickCount;
+
+    /** Credit in micro-cents, see {@link Credits}. */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long creditMicros;
+
+    public LinkMonthlyStats() {
+    }
+
+    public LinkMonthlyStats(Long linkId, LocalDate month, long clickCount, long validClickCount,
+                            long creditMicros) {
+        this.linkId = linkId;
+        this.month = month;
+        this.clickCount = clickCount;
+        this.validClickCount = validClickCount;
+        this.creditMicros = creditMicros;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getLinkId() { return linkId; }
+    public void setLinkId(Long linkId) { this.linkId = linkId; }
+
+    public LocalDate getMonth() { return month; }
+    public void setMonth(LocalDate month) { this.month = month; }
+
+    public long getClickCount() { return clickCount; }
+    public void setClickCount(long clickCount) { this.clickCount = clickCount; }
+
+    public long getValidClickCount() { return validClickCount; }
+    public void setValidClickCount(long validClickCount) { this.validClickCount = validClickCount; }
+
+    public long getCreditMicros() { return creditMicros; }
+    public void setCreditMicros(long creditMicros) { this.creditMicros = creditMicros; }
+}
@@ -0,0 +1,63 @@
+package com.interview.interview_project.model;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Location header value a link redirects to: the target URL parsed as a URI and
+ * rendered in US-ASCII, exactly what Spring writes for {@code ResponseEntity.location(uri)}.
+ * Computed once per link so the redirect path never parses URLs.
+ */
+public final class RedirectLocation {
+
+    /** Unreserved and reserved URI characters (RFC 3986), plus '%' for existing escapes. */
+    private static final String URI_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"
+            + "-._~:/?#[]@!$&'()*+,;=%";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private RedirectLocation() {
+    }
+
+    /**
+     * Returns the header value, which is the target URL itself (same instance) when it is
+     * already plain ASCII.
+     *
+     * @throws IllegalArgumentException if the target URL is not a valid URI
+     */
+    public static String of(String targetUrl) {
+        String location;
+        try {
+            location = URI.create(targetUrl).toASCIIString();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("targetUrl is not a valid URI: " + e.getMessage());
+        }
+        return location.equals(targetUrl) ? targetUrl : location;
+    }
+
+    /**
+     * Like {@link #of}, but never fails: for a URL that isn't a valid URI (one stored before
+     * creation validated them, or written to the database directly), percent-encodes the
+     * characters a URI can't contain and leaves the rest as it is, so the link still
+     * redirects instead of failing on every request.
+     */
+    public static String lenient(String targetUrl) {
+        try {
+            return of(targetUrl);
+        } catch (IllegalArgumentException e) {
+            return encodeIllegal(targetUrl);
+        }
+    }
+
+    private static String encodeIllegal(String targetUrl) {
+        StringBuilder location = new StringBuilder(targetUrl.length() + 16);
+        for (byte b : targetUrl.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if (c < 0x80 && URI_CHARS.indexOf(c) >= 0) {
+                location.append(c);
+            } else {
+                location.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            }
+        }
+        return location.toString();
+    }
+}
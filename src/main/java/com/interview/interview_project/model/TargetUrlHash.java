@@ -0,0 +1,29 @@
+package com.interview.interview_project.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fixed-width key for target URL deduplication: the first 128 bits of SHA-256 over
+ * the URL's UTF-8 bytes, as 32 lowercase hex characters. The URL is hashed exactly as
+ * given, so two URLs share a link only if they are the same string.
+ * db/target-url-hash.sql computes the same value in SQL.
+ */
+public final class TargetUrlHash {
+
+    public static final int LENGTH = 32;
+
+    private TargetUrlHash() {
+    }
+
+    public static String of(String targetUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(targetUrl.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, LENGTH / 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
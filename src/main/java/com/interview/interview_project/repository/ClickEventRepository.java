@@ -5,14 +5,25 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ClickEventRepository extends JpaRepository<ClickEvent, Long> {
 
     long countByLinkId(Long linkId);
 
-    @Query("SELECT COALESCE(SUM(c.creditAwarded), 0) FROM ClickEvent c WHERE c.link.id = :linkId")
-    java.math.BigDecimal sumCreditsByLinkId(@Param("linkId") Long linkId);
+    @Query("SELECT MIN(c.clickedAt) FROM ClickEvent c")
+    LocalDateTime findEarliestClickedAt();
 
-    List<ClickEvent> findByLinkId(Long linkId);
+    @Query("SELECT new com.interview.interview_project.repository.JournaledClickRow(c.journalOffset, c.clickedAt) "
+            + "FROM ClickEvent c WHERE c.journalId = :journalId AND c.journalOffset IN :offsets")
+    List<JournaledClickRow> findJournaled(@Param("journalId") Long journalId,
+                                          @Param("offsets") Collection<Long> offsets);
+
+    @Query("SELECT new com.interview.interview_project.repository.MonthlyClickAggregate("
+            + "c.link.id, YEAR(c.clickedAt), MONTH(c.clickedAt), COUNT(c), "
+            + "SUM(CASE WHEN c.fraudValid = true THEN 1L ELSE 0L END), COALESCE(SUM(c.creditMicros), 0L)) "
+            + "FROM ClickEvent c GROUP BY c.link.id, YEAR(c.clickedAt), MONTH(c.clickedAt)")
+    List<MonthlyClickAggregate> aggregateByLinkAndMonth();
 }
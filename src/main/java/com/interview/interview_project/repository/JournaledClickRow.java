@@ -0,0 +1,9 @@
+package com.interview.interview_project.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A click already written from the click journal: its journal offset and click time.
+ */
+public record JournaledClickRow(Long journalOffset, LocalDateTime clickedAt) {
+}
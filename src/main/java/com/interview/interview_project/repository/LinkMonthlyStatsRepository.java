@@ -0,0 +1,56 @@
+package com.interview.interview_project.repository;
+
+import com.interview.interview_project.model.LinkMonthlyStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface LinkMonthlyStatsRepository extends JpaRepository<LinkMonthlyStats, Long> {
+
+    @Query("SELECT new com.interview.interview_project.repository.MonthlyStatsRow("
+            + "s.linkId, s.month, s.clickCount, s.creditMicros, l.statsVersion) "
+            + "FROM LinkMonthlyStats s JOIN Link l ON l.id = s.linkId "
+            + "WHERE s.linkId IN :linkIds ORDER BY s.linkId, s.month")
+    List<MonthlyStatsRow> findRowsByLinkIds(@Param("linkIds") Collection<Long> linkIds);
+
+    @Modifying
+    @Query("DELETE FROM LinkMonthlyStats s WHERE s.month >= :month")
+    int deleteFromMonth(@Param("month") LocalDate month);
+
+    @Query("SELECT s.linkId FROM LinkMonthlyStats s GROUP BY s.linkId ORDER BY SUM(s.clickCount) DESC")
+    List<Long> findMostClickedLinkIds(Pageable pageable);
+
+    @Query("SELECT new com.interview.interview_project.repository.LinkTotalsRow("
+            + "s.linkId, SUM(s.clickCount), SUM(s.creditMicros), l.statsVersion) "
+            + "FROM LinkMonthlyStats s JOIN Link l ON l.id = s.linkId "
+            + "GROUP BY s.linkId, l.statsVersion ORDER BY SUM(s.clickCount) DESC")
+    List<LinkTotalsRow> findMostClickedTotals(Pageable pageable);
+
+    @Query("SELECT new com.interview.interview_project.repository.LinkTotalsRow("
+            + "s.linkId, SUM(s.clickCount), SUM(s.creditMicros), l.statsVersion) "
+            + "FROM LinkMonthlyStats s JOIN Link l ON l.id = s.linkId "
+            + "WHERE s.linkId IN :linkIds GROUP BY s.linkId, l.statsVersion")
+    List<LinkTotalsRow> findTotalsByLinkIds(@Param("linkIds") Collection<Long> linkIds);
+
+    /**
+     * Streams every link with its monthly rows in [from, to], ordered by link id then month.
+     * Must be consumed inside a transaction; rows are fetched from a server-side cursor
+     * in chunks of the fetch size rather than loaded all at once.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.interview.interview_project.repository.StatsExportRow("
+            + "l.id, l.targetUrl, s.month, s.clickCount, s.creditMicros) "
+            + "FROM Link l LEFT JOIN LinkMonthlyStats s ON s.linkId = l.id AND s.month BETWEEN :from AND :to "
+            + "ORDER BY l.id, s.month")
+    Stream<StatsExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
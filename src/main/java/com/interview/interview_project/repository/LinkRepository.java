@@ -1,13 +1,48 @@
 package com.interview.interview_project.repository;
 
 import com.interview.interview_project.model.Link;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LinkRepository extends JpaRepository<Link, Long> {
 
-    Optional<Link> findByTargetUrl(String targetUrl);
+    Optional<Link> findByTargetUrlHash(String targetUrlHash);
 
     Optional<Link> findByShortCode(String shortCode);
+
+    List<Link> findByTargetUrlHashIn(Collection<String> targetUrlHashes);
+
+    List<Link> findByTargetUrlHashIsNull(Limit limit);
+
+    @Query("SELECT l.shortCode FROM Link l WHERE l.shortCode IN :shortCodes")
+    List<String> findExistingShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
+    List<Link> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT new com.interview.interview_project.repository.LinkTargetRow(l.id, l.shortCode, l.targetUrl) "
+            + "FROM Link l WHERE l.shortCode = :shortCode")
+    Optional<LinkTargetRow> findTargetByShortCode(@Param("shortCode") String shortCode);
+
+    @Query("SELECT new com.interview.interview_project.repository.LinkTargetRow(l.id, l.shortCode, l.targetUrl) "
+            + "FROM Link l WHERE l.id IN :ids")
+    List<LinkTargetRow> findTargetsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.interview.interview_project.repository.LinkStatsVersionRow(l.id, l.statsVersion) "
+            + "FROM Link l WHERE l.id IN :ids")
+    List<LinkStatsVersionRow> findStatsVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Link l SET l.statsVersion = l.statsVersion + 1 WHERE l.id IN :ids")
+    int incrementStatsVersions(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Link l SET l.statsVersion = l.statsVersion + 1")
+    int incrementAllStatsVersions();
 }
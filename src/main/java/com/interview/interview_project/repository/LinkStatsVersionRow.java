@@ -0,0 +1,7 @@
+package com.interview.interview_project.repository;
+
+/**
+ * A link's current stats version, read without loading the entity.
+ */
+public record LinkStatsVersionRow(Long id, Long statsVersion) {
+}
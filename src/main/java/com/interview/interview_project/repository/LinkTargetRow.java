@@ -0,0 +1,7 @@
+package com.interview.interview_project.repository;
+
+/**
+ * The columns of a link the redirect path needs, read without loading the entity.
+ */
+public record LinkTargetRow(Long id, String shortCode, String targetUrl) {
+}
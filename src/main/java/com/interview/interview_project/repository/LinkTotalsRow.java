@@ -0,0 +1,9 @@
+package com.interview.interview_project.repository;
+
+/**
+ * All-time totals for one link, summed over its link_monthly_stats rows, with the link's
+ * stats version read in the same statement: the totals include exactly the batches that
+ * bumped the version up to that value.
+ */
+public record LinkTotalsRow(Long linkId, Long clickCount, Long creditMicros, Long statsVersion) {
+}
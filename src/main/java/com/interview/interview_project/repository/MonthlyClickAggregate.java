@@ -0,0 +1,8 @@
+package com.interview.interview_project.repository;
+
+/**
+ * Clicks of one link in one calendar month, aggregated from click_events.
+ */
+public record MonthlyClickAggregate(Long linkId, Integer year, Integer month, Long clickCount,
+                                    Long validClickCount, Long creditMicros) {
+}
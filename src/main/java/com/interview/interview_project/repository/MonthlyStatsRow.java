@@ -0,0 +1,11 @@
+package com.interview.interview_project.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a link_monthly_stats row, used to build stats pages
+ * without loading managed entities. Carries the link's stats version from the same
+ * statement, i.e. the version the row's counts are current as of.
+ */
+public record MonthlyStatsRow(Long linkId, LocalDate month, long clickCount, long creditMicros, long statsVersion) {
+}
@@ -0,0 +1,11 @@
+package com.interview.interview_project.repository;
+
+import java.time.LocalDate;
+
+/**
+ * One link joined with one of its monthly rollup rows, for the streaming export.
+ * The month columns are null for a link with no clicks in the requested range.
+ */
+public record StatsExportRow(Long linkId, String targetUrl, LocalDate month, Long clickCount,
+                             Long creditMicros) {
+}
@@ -0,0 +1,16 @@
+package com.interview.interview_project.service;
+
+/**
+ * One input item of a streamed bulk create: a target URL, or the reason the item couldn't
+ * be read (e.g. a malformed NDJSON line), which comes back as its INVALID result.
+ */
+public record BulkCreateItem(String targetUrl, String error) {
+
+    public static BulkCreateItem of(String targetUrl) {
+        return new BulkCreateItem(targetUrl, null);
+    }
+
+    public static BulkCreateItem unreadable(String error) {
+        return new BulkCreateItem(null, error);
+    }
+}
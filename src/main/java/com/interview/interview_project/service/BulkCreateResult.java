@@ -0,0 +1,15 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.Link;
+
+/**
+ * Result for one input URL of a bulk create. {@code link} is null when the URL was invalid.
+ */
+public record BulkCreateResult(String targetUrl, Link link, Status status, String error) {
+
+    public enum Status {
+        CREATED,
+        EXISTING,
+        INVALID
+    }
+}
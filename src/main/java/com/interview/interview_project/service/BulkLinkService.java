@@ -0,0 +1,211 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.model.RedirectLocation;
+import com.interview.interview_project.model.TargetUrlHash;
+import com.interview.interview_project.repository.LinkRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Creates links for many target URLs at once. URLs are processed in chunks: each chunk
+ * costs one set-based lookup of existing links and one batched insert, instead of a
+ * lookup, code probes and an insert per URL. Same idempotency as single creation:
+ * a URL that already has a link gets that link back.
+ */
+@Service
+public class BulkLinkService {
+
+    private static final int MAX_CODE_ROUNDS = 10;
+
+    private final LinkRepository linkRepository;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ShortCodeCache shortCodeCache;
+    private final ClusterEventBus clusterEventBus;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BulkLinkService(LinkRepository linkRepository, ShortCodeGenerator shortCodeGenerator,
+                           ShortCodeCache shortCodeCache, ClusterEventBus clusterEventBus,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shortlinks.bulk.chunk-size:1000}") int chunkSize) {
+        this.linkRepository = linkRepository;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.shortCodeCache = shortCodeCache;
+        this.clusterEventBus = clusterEventBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates (or finds) a link for every URL. Results are in input order; duplicate
+     * URLs in the input all resolve to the same link.
+     */
+    public List<BulkCreateResult> createShortLinks(List<String> targetUrls) {
+        Set<String> valid = new LinkedHashSet<>();
+        Map<String, BulkCreateResult> byUrl = new HashMap<>();
+        for (String url : targetUrls) {
+            if (url == null || url.isBlank() || valid.contains(url) || byUrl.containsKey(url)) {
+                continue;
+            }
+            try {
+                RedirectLocation.of(url);
+                valid.add(url);
+            } catch (IllegalArgumentException e) {
+                byUrl.put(url, new BulkCreateResult(url, null, BulkCreateResult.Status.INVALID, e.getMessage()));
+            }
+        }
+
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String url : valid) {
+            chunk.add(url);
+            if (chunk.size() == chunkSize) {
+                byUrl.putAll(createChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            byUrl.putAll(createChunk(chunk));
+        }
+
+        List<BulkCreateResult> results = new ArrayList<>(targetUrls.size());
+        for (String url : targetUrls) {
+            BulkCreateResult result = url == null ? null : byUrl.get(url);
+            results.add(result != null ? result : new BulkCreateResult(url, null, BulkCreateResult.Status.INVALID,
+                    "targetUrl is required and cannot be empty"));
+        }
+        return results;
+    }
+
+    /**
+     * Creates links for items read lazily from {@code items}, one chunk at a time, handing
+     * each chunk's results (in input order) to {@code chunkResults} before reading the
+     * next, so neither the input nor the results are ever held whole. A URL repeated in a
+     * later chunk comes back as EXISTING; an unreadable item comes back INVALID with its
+     * own error.
+     */
+    public void createShortLinks(Iterator<BulkCreateItem> items, Consumer<List<BulkCreateResult>> chunkResults) {
+        List<BulkCreateItem> chunk = new ArrayList<>(chunkSize);
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize) {
+                chunkResults.accept(createItems(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkResults.accept(createItems(chunk));
+        }
+    }
+
+    private List<BulkCreateResult> createItems(List<BulkCreateItem> items) {
+        List<String> targetUrls = items.stream()
+                .filter(item -> item.error() == null)
+                .map(BulkCreateItem::targetUrl)
+                .toList();
+        Iterator<BulkCreateResult> created = createShortLinks(targetUrls).iterator();
+        List<BulkCreateResult> results = new ArrayList<>(items.size());
+        for (BulkCreateItem item : items) {
+            results.add(item.error() == null ? created.next()
+                    : new BulkCreateResult(null, null, BulkCreateResult.Status.INVALID, item.error()));
+        }
+        return results;
+    }
+
+    /**
+     * Inserts a chunk, retrying it in a new transaction when a unique index rejects it:
+     * a concurrent request created some of these URLs, which the retry then finds, or a
+     * code was taken, e.g. by a legacy random code equal to a sequence code, and the
+     * retry takes fresh ones.
+     */
+    private Map<String, BulkCreateResult> createChunk(List<String> urls) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertMissing(urls));
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_CODE_ROUNDS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Map<String, BulkCreateResult> insertMissing(List<String> urls) {
+        Map<String, BulkCreateResult> results = new HashMap<>();
+        Set<String> wanted = new HashSet<>(urls);
+        List<String> hashes = urls.stream().map(TargetUrlHash::of).toList();
+        for (Link link : linkRepository.findByTargetUrlHashIn(hashes)) {
+            if (!wanted.contains(link.getTargetUrl())) {
+                continue;
+            }
+            results.put(link.getTargetUrl(),
+                    new BulkCreateResult(link.getTargetUrl(), link, BulkCreateResult.Status.EXISTING, null));
+        }
+
+        List<String> missing = urls.stream().filter(url -> !results.containsKey(url)).toList();
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        List<String> codes = generateCodes(missing.size());
+        List<Link> created = new ArrayList<>(missing.size());
+        for (int i = 0; i < missing.size(); i++) {
+            created.add(new Link(codes.get(i), missing.get(i)));
+        }
+        for (Link link : linkRepository.saveAll(created)) {
+            shortCodeCache.invalidateAfterCommit(link.getShortCode());
+            clusterEventBus.publish(new ClusterEvent.LinkChanged(ClusterEvent.LinkChanged.Type.CREATED,
+                    link.getShortCode()));
+            results.put(link.getTargetUrl(),
+                    new BulkCreateResult(link.getTargetUrl(), link, BulkCreateResult.Status.CREATED, null));
+        }
+        return results;
+    }
+
+    /**
+     * Generates {@code count} distinct codes. Generators that can repeat are checked with
+     * one IN query per round, regenerating only the codes that were taken.
+     */
+    private List<String> generateCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        Set<String> unique = new HashSet<>();
+        while (codes.size() < count) {
+            String code = shortCodeGenerator.nextCode();
+            if (unique.add(code)) {
+                codes.add(code);
+            }
+        }
+        if (!shortCodeGenerator.requiresUniquenessCheck()) {
+            return codes;
+        }
+
+        for (int round = 0; round < MAX_CODE_ROUNDS; round++) {
+            Set<String> taken = new HashSet<>(linkRepository.findExistingShortCodes(codes));
+            if (taken.isEmpty()) {
+                return codes;
+            }
+            for (int i = 0; i < codes.size(); i++) {
+                while (taken.contains(codes.get(i))) {
+                    String replacement = shortCodeGenerator.nextCode();
+                    if (unique.add(replacement)) {
+                        codes.set(i, replacement);
+                    }
+                }
+            }
+        }
+        throw new RuntimeException("Failed to generate unique short codes after " + MAX_CODE_ROUNDS + " rounds");
+    }
+}
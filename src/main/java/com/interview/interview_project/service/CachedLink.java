@@ -0,0 +1,26 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.model.RedirectLocation;
+import com.interview.interview_project.repository.LinkTargetRow;
+
+/**
+ * Immutable view of a link as needed by the redirect path, with its Location header
+ * value precomputed. Links never change after creation, so this is safe to cache indefinitely.
+ * A stored target URL that isn't a valid URI gets a leniently encoded Location rather than
+ * an error (see {@link RedirectLocation#lenient}).
+ */
+public record CachedLink(Long id, String shortCode, String targetUrl, String location) {
+
+    public static CachedLink from(Link link) {
+        return of(link.getId(), link.getShortCode(), link.getTargetUrl());
+    }
+
+    public static CachedLink from(LinkTargetRow row) {
+        return of(row.id(), row.shortCode(), row.targetUrl());
+    }
+
+    private static CachedLink of(Long id, String shortCode, String targetUrl) {
+        return new CachedLink(id, shortCode, targetUrl, RedirectLocation.lenient(targetUrl));
+    }
+}
@@ -0,0 +1,43 @@
+package com.interview.interview_project.service;
+
+/**
+ * What fraud validation knows about one click. The fingerprint identifies the client
+ * and link (address, user agent, link id; not the time), so repeat clicks can reuse a
+ * recent verdict. Clicks read back from the {@link ClickJournal} carry only the
+ * fingerprint: the address and user agent are not journaled and are null there.
+ */
+public record ClickContext(Long linkId, String clientIp, String userAgent, long clickedAtMillis,
+                           long fingerprint) {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public static ClickContext of(Long linkId, String clientIp, String userAgent, long clickedAtMillis) {
+        return new ClickContext(linkId, clientIp, userAgent, clickedAtMillis,
+                fingerprint(linkId, clientIp, userAgent));
+    }
+
+    /**
+     * 64-bit FNV-1a over the address and user agent, mixed with the link id. Collisions
+     * would share a verdict, so 64 bits keeps them negligible at any realistic cache size.
+     */
+    static long fingerprint(long linkId, String clientIp, String userAgent) {
+        long hash = FNV_OFFSET;
+        hash = fnv(hash, clientIp);
+        hash = (hash ^ 0xff) * FNV_PRIME;
+        hash = fnv(hash, userAgent);
+        hash ^= linkId * 0x9e3779b97f4a7c15L;
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static long fnv(long hash, String value) {
+        if (value == null) {
+            return hash;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
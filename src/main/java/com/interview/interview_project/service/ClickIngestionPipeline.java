@@ -0,0 +1,345 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.config.ReadWriteRoutingDataSource;
+import com.interview.interview_project.config.ReadWriteRoutingDataSource.Route;
+import com.interview.interview_project.model.ClickEvent;
+import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.repository.JournaledClickRow;
+import com.interview.interview_project.repository.LinkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for validated clicks. Click processing enqueues a
+ * {@link ClickRecord} and a single drainer thread persists them in JDBC batches,
+ * flushing when a batch fills up or the oldest queued click reaches the max delay.
+ * Each batch updates the monthly stats rollup in the same transaction, and
+ * {@link LinkCounterStore} tracks queued clicks until their batch commits, and
+ * {@link ClickJournal} is told once a journaled click is written or dropped. In a cluster,
+ * each batch's per-link totals go out on the {@link ClusterEventBus} when it commits.
+ * When the queue is full, producers wait briefly; a journaled click is then handed back to
+ * the journal for redelivery after the retry delay, and any other click is dropped.
+ * <p>
+ * A batch that fails to write is handed back to the journal, verdicts included, and queued
+ * again after a backoff that doubles with each consecutive failure, so a database outage
+ * delays clicks rather than losing them. A batch rejected by a constraint is retried click
+ * by click, and only the clicks that still violate it are dropped.
+ * <p>
+ * Journaled clicks are stored with the journal's id and offset. Before writing, a batch
+ * looks up which of its journaled clicks are already in click_events (replayed after a
+ * crash, or a write that committed but reported failure) and skips them, so they are
+ * neither inserted nor added to the rollup twice; a unique index backs this up.
+ */
+@Component
+public class ClickIngestionPipeline implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickIngestionPipeline.class);
+
+    /** Stops after the click executor so in-flight clicks can still be enqueued. */
+    static final int PHASE = Integer.MAX_VALUE - 2000;
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final ClickEventRepository clickEventRepository;
+    private final LinkRepository linkRepository;
+    private final StatsRollupService statsRollupService;
+    private final LinkCounterStore linkCounterStore;
+    private final ClickJournal clickJournal;
+    private final ClusterEventBus clusterEventBus;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<ClickRecord> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Duration enqueueTimeout;
+    private final Duration retryDelay;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+
+    private volatile boolean running;
+    private Thread drainer;
+    // Only the drainer thread writes it.
+    private int consecutiveFailures;
+
+    public ClickIngestionPipeline(ClickEventRepository clickEventRepository,
+                                  LinkRepository linkRepository,
+                                  StatsRollupService statsRollupService,
+                                  LinkCounterStore linkCounterStore,
+                                  ClickJournal clickJournal,
+                                  ClusterEventBus clusterEventBus,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${shortlinks.ingest.queue-capacity:100000}") int queueCapacity,
+                                  @Value("${shortlinks.ingest.batch-size:500}") int batchSize,
+                                  @Value("${shortlinks.ingest.max-delay:200ms}") Duration maxDelay,
+                                  @Value("${shortlinks.ingest.enqueue-timeout:50ms}") Duration enqueueTimeout,
+                                  @Value("${shortlinks.ingest.retry-delay:1s}") Duration retryDelay) {
+        this.clickEventRepository = clickEventRepository;
+        this.linkRepository = linkRepository;
+        this.statsRollupService = statsRollupService;
+        this.linkCounterStore = linkCounterStore;
+        this.clickJournal = clickJournal;
+        this.clusterEventBus = clusterEventBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeout = enqueueTimeout;
+        this.retryDelay = retryDelay;
+
+        Gauge.builder("shortlinks.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Clicks waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("shortlinks.ingest.flush")
+                .description("Time to write one batch of clicks")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("shortlinks.ingest.batch.size")
+                .description("Clicks written per batch")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("shortlinks.ingest.dropped")
+                .description("Clicks dropped because the queue was full or shut down")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("shortlinks.ingest.failed")
+                .description("Clicks lost to a failed batch write (not journaled, or rejected by a constraint)")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("shortlinks.ingest.duplicates")
+                .description("Journaled clicks skipped because they were already written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a click for persistence. Blocks for at most the configured enqueue timeout
+     * when the queue is full, then hands a journaled click back to the journal for
+     * redelivery, or drops the click if it isn't journaled.
+     *
+     * @return true if the click was accepted
+     */
+    public boolean enqueue(ClickRecord record) {
+        if (!running) {
+            // Not reported to the journal: a journaled click is replayed on the next start.
+            droppedCounter.increment();
+            return false;
+        }
+        // Counted before the offer so the drainer can never persist a click the store hasn't seen.
+        linkCounterStore.accepted(record);
+        try {
+            if (queue.offer(record, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        linkCounterStore.discarded(List.of(record));
+        if (record.journalOffset() != ClickRecord.NOT_JOURNALED) {
+            // Still in flight, so the checkpoint can't pass it and a restart replays it.
+            clickJournal.redeliver(List.of(record), retryDelay);
+            return false;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "click-ingest-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer == null) {
+            return;
+        }
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Click ingestion stopped with {} clicks still queued", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drainLoop() {
+        List<ClickRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ClickRecord first = queue.poll(maxDelayNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ClickRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<ClickRecord> batch) {
+        long start = System.nanoTime();
+        linkCounterStore.beginBatch();
+        try {
+            write(batch);
+        } finally {
+            linkCounterStore.endBatch();
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void write(List<ClickRecord> batch) {
+        Written written;
+        try (var route = ReadWriteRoutingDataSource.route(Route.INGEST)) {
+            written = transactionTemplate.execute(status -> {
+                List<ClickRecord> fresh = withoutWritten(batch);
+                if (fresh.isEmpty()) {
+                    return new Written(fresh, Map.of());
+                }
+                List<ClickEvent> events = new ArrayList<>(fresh.size());
+                for (ClickRecord record : fresh) {
+                    boolean journaled = record.journalOffset() != ClickRecord.NOT_JOURNALED;
+                    events.add(new ClickEvent(linkRepository.getReferenceById(record.linkId()),
+                            record.clickedAt(), record.fraudValid(), record.creditMicros(),
+                            journaled ? clickJournal.id() : null, journaled ? record.journalOffset() : null));
+                }
+                clickEventRepository.saveAll(events);
+                Map<Long, Long> statsVersions = statsRollupService.apply(fresh);
+                if (clusterEventBus.isClustered()) {
+                    ClusterEvent.ClicksPersisted.of(fresh, statsVersions).forEach(clusterEventBus::publish);
+                }
+                return new Written(fresh, statsVersions);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() > 1) {
+                log.warn("Batch of {} clicks violates a constraint; writing them one by one", batch.size(), e);
+                batch.forEach(click -> write(List.of(click)));
+            } else {
+                linkCounterStore.discarded(batch);
+                clickJournal.completed(batch);
+                failedCounter.increment();
+                log.error("Dropping click for link {}: rejected by the database", batch.get(0).linkId(), e);
+            }
+            return;
+        } catch (RuntimeException e) {
+            retryLater(batch, e);
+            return;
+        }
+        consecutiveFailures = 0;
+        if (written.clicks().size() < batch.size()) {
+            List<ClickRecord> duplicates = new ArrayList<>(batch);
+            duplicates.removeAll(written.clicks());
+            linkCounterStore.discarded(duplicates);
+            duplicateCounter.increment(duplicates.size());
+        }
+        linkCounterStore.persisted(written.clicks(), written.statsVersions());
+        clickJournal.completed(batch);
+        batchSizeSummary.record(written.clicks().size());
+    }
+
+    /**
+     * The clicks of a batch that aren't in click_events yet. A journaled click counts as
+     * written when a row has its journal id, offset and click time; the click time guards
+     * against an offset reused after a host crash lost the record that first had it.
+     */
+    private List<ClickRecord> withoutWritten(List<ClickRecord> batch) {
+        Map<Long, ClickRecord> journaled = new HashMap<>();
+        for (ClickRecord record : batch) {
+            if (record.journalOffset() != ClickRecord.NOT_JOURNALED) {
+                journaled.put(record.journalOffset(), record);
+            }
+        }
+        if (journaled.isEmpty()) {
+            return batch;
+        }
+        Set<ClickRecord> written = new HashSet<>();
+        for (JournaledClickRow row : clickEventRepository.findJournaled(clickJournal.id(), journaled.keySet())) {
+            ClickRecord record = journaled.get(row.journalOffset());
+            if (record != null && record.clickedAt().equals(row.clickedAt())) {
+                written.add(record);
+            }
+        }
+        if (written.isEmpty()) {
+            return batch;
+        }
+        List<ClickRecord> fresh = new ArrayList<>(batch.size() - written.size());
+        for (ClickRecord record : batch) {
+            if (!written.contains(record)) {
+                fresh.add(record);
+            }
+        }
+        return fresh;
+    }
+
+    private void retryLater(List<ClickRecord> batch, RuntimeException cause) {
+        consecutiveFailures++;
+        long delayMillis = retryDelay.toMillis() << Math.min(consecutiveFailures - 1, 16);
+        Duration delay = Duration.ofMillis(Math.min(delayMillis, MAX_RETRY_DELAY.toMillis()));
+        linkCounterStore.discarded(batch);
+        int redelivered = clickJournal.redeliver(batch, delay);
+        failedCounter.increment(batch.size() - redelivered);
+        log.error("Failed to write batch of {} clicks; {} will be retried from the journal in {}ms",
+                batch.size(), redelivered, delay.toMillis(), cause);
+    }
+
+    /** The clicks of a batch that were written, and the stats versions their links moved to. */
+    private record Written(List<ClickRecord> clicks, Map<Long, Long> statsVersions) {
+    }
+}
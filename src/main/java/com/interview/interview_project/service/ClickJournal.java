@@ -0,0 +1,544 @@
+package com.interview.interview_project.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only local journal of clicks, so a click survives a deploy or crash between the
+ * redirect and its database write without the redirect waiting on the database.
+ * <p>
+ * The redirect path appends a fixed-size record (link id, click time, client fingerprint) to
+ * a memory-mapped segment file. {@link ClickJournalConsumer} polls records in order and hands
+ * them to fraud validation; the ingestion pipeline reports each record back once its batch
+ * commits or the click is dropped, or hands it back for redelivery, verdict and all, when
+ * the write failed. The checkpoint is the lowest offset not yet reported,
+ * written to disk on every sync, and on startup everything from the checkpoint on is
+ * replayed. Delivery is at least once: clicks committed after the last checkpoint are
+ * replayed after a crash, and the pipeline skips them by the journal id and offset it
+ * stores with every journaled click.
+ * <p>
+ * Records are numbered by a global offset. Each segment holds a fixed number of records and
+ * is named after its first offset; segments entirely below the checkpoint are deleted.
+ */
+@Component
+public class ClickJournal implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickJournal.class);
+
+    /** Opens before the web server accepts redirects and closes after the pipeline's last flush. */
+    static final int PHASE = ClickIngestionPipeline.PHASE - 50;
+
+    /**
+     * linkId (8), clickedAt epoch millis (8), {@link ClickContext#fingerprint()} (8),
+     * CRC32C of those 24 bytes (4), magic (4).
+     */
+    static final int RECORD_BYTES = 32;
+    private static final int MAGIC = 0x434c4b32;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String ID_FILE = "journal-id";
+
+    /**
+     * When appended records are forced to disk. Without a force they are still in the page
+     * cache, which survives a process crash but not a host crash.
+     */
+    public enum FsyncPolicy {
+        /** Leave write-back to the OS. */
+        NEVER,
+        /** Force the records appended since the last sync, every sync interval. */
+        INTERVAL,
+        /** Force each record before the append returns. */
+        ALWAYS
+    }
+
+    public record Entry(long offset, long linkId, long clickedAtMillis, long fingerprint) {
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration syncInterval;
+    private final int maxInFlight;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final PriorityBlockingQueue<Redelivery> redeliveries =
+            new PriorityBlockingQueue<>(16, Comparator.comparingLong(Redelivery::dueNanos));
+    private final PriorityBlockingQueue<Retry> retries =
+            new PriorityBlockingQueue<>(16, Comparator.comparingLong(Retry::dueNanos));
+    private final SecureRandom random = new SecureRandom();
+    /** Reused for every record; guarded by appendLock, and used by open() before any append. */
+    private final CRC32C crc = new CRC32C();
+    private final Counter appendFailures;
+
+    // Guarded by appendLock; published for readers through appendedUpTo.
+    private Segment head;
+    private long nextOffset;
+    private volatile long appendedUpTo;
+    private volatile long syncedUpTo;
+
+    /** Next offset the consumer will poll; only the consumer thread writes it. */
+    private volatile long consumedUpTo;
+    private volatile long checkpoint;
+    /** Random id created with the journal directory, so offsets are unique per id. */
+    private volatile long id;
+
+    private ScheduledExecutorService syncer;
+    private volatile boolean running;
+
+    public ClickJournal(@Value("${shortlinks.journal.enabled:true}") boolean enabled,
+                        @Value("${shortlinks.journal.dir:click-journal}") Path dir,
+                        @Value("${shortlinks.journal.segment-bytes:67108864}") long segmentBytes,
+                        @Value("${shortlinks.journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                        @Value("${shortlinks.journal.sync-interval:100ms}") Duration syncInterval,
+                        @Value("${shortlinks.journal.max-in-flight:10000}") int maxInFlight,
+                        MeterRegistry meterRegistry) {
+        if (segmentBytes < RECORD_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("shortlinks.journal.segment-bytes must be between "
+                    + RECORD_BYTES + " and " + Integer.MAX_VALUE);
+        }
+        this.enabled = enabled;
+        this.dir = dir;
+        this.recordsPerSegment = (int) (segmentBytes / RECORD_BYTES);
+        this.fsyncPolicy = fsyncPolicy;
+        this.syncInterval = syncInterval;
+        this.maxInFlight = maxInFlight;
+
+        Gauge.builder("shortlinks.journal.lag", this, journal -> journal.appendedUpTo - journal.consumedUpTo)
+                .description("Journaled clicks not yet handed to fraud validation")
+                .register(meterRegistry);
+        Gauge.builder("shortlinks.journal.in-flight", inFlightCount, AtomicInteger::get)
+                .description("Journaled clicks handed over but not yet persisted or dropped")
+                .register(meterRegistry);
+        this.appendFailures = Counter.builder("shortlinks.journal.append.failed")
+                .description("Clicks that could not be journaled and were processed from memory")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a click and returns its offset.
+     *
+     * @throws UncheckedIOException if a new segment can't be created
+     */
+    public long append(long linkId, long clickedAtMillis, long fingerprint) {
+        appendLock.lock();
+        try {
+            if (head == null) {
+                throw new IllegalStateException("Click journal is not open");
+            }
+            if (nextOffset == head.endOffset()) {
+                roll();
+            }
+            long offset = nextOffset;
+            int position = head.position(offset);
+            head.write(position, linkId, clickedAtMillis, fingerprint, crc);
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                head.buffer.force(position, RECORD_BYTES);
+            }
+            nextOffset = offset + 1;
+            appendedUpTo = nextOffset;
+            return offset;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** Counts a click that bypassed the journal because the append failed. */
+    void appendFailed() {
+        appendFailures.increment();
+    }
+
+    /** Identifies this journal's offsets; stable across restarts while the directory is kept. */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * Returns a record handed back by {@link #retry} that is due, else the next record, marked
+     * in flight; null when the consumer has caught up or {@code max-in-flight} records are
+     * already waiting to be reported back.
+     * Must only be called from the single consumer thread.
+     */
+    public Entry poll() {
+        Retry due = retries.peek();
+        if (due != null && System.nanoTime() - due.dueNanos() >= 0) {
+            Retry retry = retries.poll();
+            return segments.floorEntry(retry.offset()).getValue().read(retry.offset());
+        }
+        long offset = consumedUpTo;
+        if (offset >= appendedUpTo || inFlightCount.get() >= maxInFlight) {
+            return null;
+        }
+        Map.Entry<Long, Segment> segment = segments.floorEntry(offset);
+        Entry entry = segment.getValue().read(offset);
+        inFlight.add(offset);
+        inFlightCount.incrementAndGet();
+        consumedUpTo = offset + 1;
+        return entry;
+    }
+
+    /**
+     * Returns a click handed back by {@link #redeliver} whose delay is up, with the verdict
+     * and credit it had; null if none is due. It is still in flight.
+     */
+    public ClickRecord pollRedelivered() {
+        Redelivery due = redeliveries.peek();
+        if (due == null || System.nanoTime() - due.dueNanos() < 0) {
+            return null;
+        }
+        Redelivery redelivery = redeliveries.poll();
+        return redelivery == null ? null : redelivery.click();
+    }
+
+    /**
+     * Reports clicks that no longer need replaying: persisted, or deliberately dropped.
+     * Clicks without a journal offset are ignored.
+     */
+    public void completed(List<ClickRecord> clicks) {
+        for (ClickRecord click : clicks) {
+            if (click.journalOffset() != ClickRecord.NOT_JOURNALED && inFlight.remove(click.journalOffset())) {
+                inFlightCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Hands in-flight clicks back to be returned by {@link #pollRedelivered} after
+     * {@code delay}, e.g. because their batch write failed, so they aren't validated again.
+     * They stay in flight, so the checkpoint can't pass them and a restart replays them.
+     * Clicks without a journal offset are ignored.
+     *
+     * @return the number of clicks queued for redelivery
+     */
+    public int redeliver(List<ClickRecord> clicks, Duration delay) {
+        long dueNanos = System.nanoTime() + delay.toNanos();
+        int queued = 0;
+        for (ClickRecord click : clicks) {
+            if (click.journalOffset() != ClickRecord.NOT_JOURNALED && inFlight.contains(click.journalOffset())) {
+                redeliveries.add(new Redelivery(click, dueNanos));
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Hands an in-flight record that failed before it got a verdict back to be returned by
+     * {@link #poll} again after {@code delay}. Like a redelivered click it stays in flight.
+     */
+    public void retry(long offset, Duration delay) {
+        if (inFlight.contains(offset)) {
+            retries.add(new Retry(offset, System.nanoTime() + delay.toNanos()));
+        }
+    }
+
+    /** Offset from which the journal would be replayed if the process stopped now. */
+    public long checkpoint() {
+        return checkpoint;
+    }
+
+    public long appendedUpTo() {
+        return appendedUpTo;
+    }
+
+    public int inFlightCount() {
+        return inFlightCount.get();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open click journal in " + dir, e);
+        }
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "click-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, syncInterval.toMillis());
+        syncer.scheduleWithFixedDelay(this::syncQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        syncQuietly();
+        if (inFlightCount.get() > 0) {
+            log.warn("Click journal closed with {} clicks in flight; they will be replayed on startup",
+                    inFlightCount.get());
+        }
+        appendLock.lock();
+        try {
+            head = null;
+        } finally {
+            appendLock.unlock();
+        }
+        segments.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Forces appended records per the fsync policy, persists the checkpoint and deletes
+     * segments that are entirely below it.
+     */
+    void sync() throws IOException {
+        Segment segment;
+        long from;
+        long to;
+        appendLock.lock();
+        try {
+            segment = head;
+            from = Math.max(syncedUpTo, segment.baseOffset);
+            to = nextOffset;
+        } finally {
+            appendLock.unlock();
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && to > from) {
+            segment.buffer.force(segment.position(from), (int) (to - from) * RECORD_BYTES);
+        }
+        syncedUpTo = to;
+
+        long consumed = consumedUpTo;
+        Long oldestInFlight = inFlight.isEmpty() ? null : inFlight.first();
+        long next = oldestInFlight == null ? consumed : Math.min(consumed, oldestInFlight);
+        if (next != checkpoint) {
+            writeCheckpoint(next);
+            checkpoint = next;
+        }
+
+        for (Segment old : segments.headMap(segment.baseOffset).values()) {
+            if (old.endOffset() <= checkpoint) {
+                segments.remove(old.baseOffset);
+                Files.deleteIfExists(old.file);
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException | RuntimeException e) {
+            log.error("Click journal sync failed", e);
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                        segments.put(base, Segment.map(file, base, recordsPerSegment));
+                    });
+        }
+
+        Path idFile = dir.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Path partial = dir.resolve(ID_FILE + ".tmp");
+            Files.write(partial, ByteBuffer.allocate(Long.BYTES).putLong(0, random.nextLong()).array());
+            Files.move(partial, idFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        id = ByteBuffer.wrap(Files.readAllBytes(idFile)).getLong();
+
+        Path checkpointFile = dir.resolve(CHECKPOINT_FILE);
+        long saved = Files.exists(checkpointFile)
+                ? ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong()
+                : segments.isEmpty() ? 0 : segments.firstKey();
+
+        if (segments.isEmpty()) {
+            segments.put(saved, Segment.create(dir, saved, recordsPerSegment));
+        }
+        Segment last = segments.lastEntry().getValue();
+        long end = last.baseOffset + last.validRecords(crc);
+        // A checkpoint past the end means the segments it covered are gone; start clean there.
+        if (saved > end) {
+            last = Segment.create(dir, saved, recordsPerSegment);
+            segments.put(saved, last);
+            end = saved;
+        }
+        long start = Math.max(saved, segments.firstKey());
+
+        appendLock.lock();
+        try {
+            head = last;
+            nextOffset = end;
+            appendedUpTo = end;
+            syncedUpTo = end;
+        } finally {
+            appendLock.unlock();
+        }
+        consumedUpTo = start;
+        checkpoint = start;
+        inFlight.clear();
+        inFlightCount.set(0);
+        redeliveries.clear();
+        retries.clear();
+        if (end > start) {
+            log.info("Replaying {} journaled clicks from offset {}", end - start, start);
+        }
+    }
+
+    private void roll() {
+        try {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                head.buffer.force();
+            }
+            Segment next = Segment.create(dir, nextOffset, recordsPerSegment);
+            segments.put(next.baseOffset, next);
+            head = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll click journal segment at offset " + nextOffset, e);
+        }
+    }
+
+    private void writeCheckpoint(long offset) throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        Path partial = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, offset));
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                channel.force(true);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record Redelivery(ClickRecord click, long dueNanos) {
+    }
+
+    private record Retry(long offset, long dueNanos) {
+    }
+
+    /**
+     * {@code checksumView} is a second view of {@code buffer} whose position and limit frame
+     * the record being checksummed, so the mapped buffer's own bounds never change under
+     * readers. Only used under the append lock.
+     */
+    private record Segment(Path file, long baseOffset, int records, MappedByteBuffer buffer,
+                           ByteBuffer checksumView) {
+
+        static Segment create(Path dir, long baseOffset, int records) throws IOException {
+            return map(dir.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX)), baseOffset, records);
+        }
+
+        static Segment map(Path file, long baseOffset, int records) {
+            // The mapping stays valid after the channel is closed.
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        (long) records * RECORD_BYTES);
+                return new Segment(file, baseOffset, records, buffer, buffer.duplicate());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map click journal segment " + file, e);
+            }
+        }
+
+        long endOffset() {
+            return baseOffset + records;
+        }
+
+        int position(long offset) {
+            return (int) (offset - baseOffset) * RECORD_BYTES;
+        }
+
+        void write(int position, long linkId, long clickedAtMillis, long fingerprint, CRC32C crc) {
+            buffer.putLong(position, linkId);
+            buffer.putLong(position + 8, clickedAtMillis);
+            buffer.putLong(position + 16, fingerprint);
+            buffer.putInt(position + 24, checksum(position, crc));
+            buffer.putInt(position + 28, MAGIC);
+        }
+
+        Entry read(long offset) {
+            int position = position(offset);
+            return new Entry(offset, buffer.getLong(position), buffer.getLong(position + 8),
+                    buffer.getLong(position + 16));
+        }
+
+        /**
+         * Records written before a crash: stops at the first slot that is unwritten (zero
+         * filled) or torn, and everything after it is overwritten by new appends.
+         */
+        int validRecords(CRC32C crc) {
+            for (int i = 0; i < records; i++) {
+                int position = i * RECORD_BYTES;
+                if (buffer.getInt(position + 28) != MAGIC || buffer.getInt(position + 24) != checksum(position, crc)) {
+                    return i;
+                }
+            }
+            return records;
+        }
+
+        /** CRC32C of the record's first 24 bytes, read straight from the mapping. */
+        private int checksum(int position, CRC32C crc) {
+            crc.reset();
+            checksumView.limit(position + 24).position(position);
+            crc.update(checksumView);
+            return (int) crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.interview.interview_project.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads clicks from the {@link ClickJournal} in order, including any replayed on startup,
+ * and hands each one to {@link ClickTrackingService} for fraud validation. Clicks whose
+ * batch write failed come back with their verdict and go straight to the
+ * {@link ClickIngestionPipeline}. A click that fails before it gets that far goes back to
+ * the journal to be tried again, so it never stays in flight for good. Backs off for the
+ * poll interval whenever the journal is caught up or too many clicks are in flight.
+ */
+@Component
+public class ClickJournalConsumer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickJournalConsumer.class);
+
+    /** Stops before fraud validation flushes its last window. */
+    private static final int PHASE = Integer.MAX_VALUE - 1200;
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final ClickJournal clickJournal;
+    private final ClickTrackingService clickTrackingService;
+    private final ClickIngestionPipeline clickIngestionPipeline;
+    private final long pollIntervalNanos;
+
+    private volatile boolean running;
+    private Thread reader;
+
+    public ClickJournalConsumer(ClickJournal clickJournal,
+                                ClickTrackingService clickTrackingService,
+                                ClickIngestionPipeline clickIngestionPipeline,
+                                @Value("${shortlinks.journal.poll-interval:5ms}") Duration pollInterval) {
+        this.clickJournal = clickJournal;
+        this.clickTrackingService = clickTrackingService;
+        this.clickIngestionPipeline = clickIngestionPipeline;
+        this.pollIntervalNanos = pollInterval.toNanos();
+    }
+
+    @Override
+    public void start() {
+        if (!clickJournal.isEnabled()) {
+            return;
+        }
+        running = true;
+        reader = new Thread(this::consume, "click-journal-consumer");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(reader);
+        try {
+            reader.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void consume() {
+        while (running) {
+            ClickRecord redelivered = clickJournal.pollRedelivered();
+            if (redelivered != null) {
+                clickIngestionPipeline.enqueue(redelivered);
+                continue;
+            }
+            ClickJournal.Entry entry = clickJournal.poll();
+            if (entry == null) {
+                LockSupport.parkNanos(pollIntervalNanos);
+                continue;
+            }
+            try {
+                clickTrackingService.track(entry).whenComplete((ignored, failure) -> {
+                    if (failure != null) {
+                        retry(entry, failure);
+                    }
+                });
+            } catch (RuntimeException e) {
+                retry(entry, e);
+            }
+        }
+    }
+
+    private void retry(ClickJournal.Entry entry, Throwable cause) {
+        log.error("Failed to process journaled click at offset {}; retrying in {}ms",
+                entry.offset(), RETRY_DELAY.toMillis(), cause);
+        clickJournal.retry(entry.offset(), RETRY_DELAY);
+    }
+}
@@ -0,0 +1,201 @@
+package com.interview.interview_project.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps click_events bounded in time. On Postgres, when click_events is a range-partitioned
+ * table (see db/click-events-partitioning.sql), it creates monthly partitions ahead of time.
+ * With retention enabled, months older than the retention window are archived to gzipped CSV
+ * and removed, but only once the link_monthly_stats rollup accounts for every click in them:
+ * a monthly partition is detached and dropped, anything else (H2, an unpartitioned table,
+ * rows in the legacy or default partition) is deleted by range.
+ */
+@Component
+public class ClickPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickPartitionManager.class);
+
+    static final String TABLE = "click_events";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_y'yyyy'm'MM");
+    private static final DateTimeFormatter ARCHIVE_SUFFIX = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+
+    public ClickPartitionManager(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 @Value("${shortlinks.clicks.partitions-ahead:3}") int partitionsAhead,
+                                 @Value("${shortlinks.clicks.retention-months:0}") int retentionMonths,
+                                 @Value("${shortlinks.clicks.archive-dir:click-archive}") Path archiveDir) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionsAhead = partitionsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = archiveDir;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shortlinks.clicks.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        try {
+            createUpcomingPartitions(thisMonth);
+            if (retentionMonths > 0) {
+                applyRetention(thisMonth.minusMonths(retentionMonths));
+            }
+        } catch (RuntimeException e) {
+            log.error("Click partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Creates partitions for {@code thisMonth} and the configured number of months after it.
+     * No-op unless click_events is a partitioned Postgres table.
+     *
+     * @return the months whose partitions now exist
+     */
+    public List<LocalDate> createUpcomingPartitions(LocalDate thisMonth) {
+        if (!isPartitioned()) {
+            return List.of();
+        }
+        List<LocalDate> months = new ArrayList<>();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            LocalDate month = thisMonth.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * Archives and removes every month before {@code cutoff} whose clicks are fully captured
+     * in the rollup. Months that don't reconcile are left in place and logged.
+     *
+     * @return the months that were archived
+     */
+    public List<LocalDate> applyRetention(LocalDate cutoff) {
+        Timestamp earliest = jdbcTemplate.queryForObject("SELECT MIN(clicked_at) FROM " + TABLE, Timestamp.class);
+        if (earliest == null) {
+            return List.of();
+        }
+        Set<String> partitions = isPartitioned() ? monthlyPartitions() : Set.of();
+        List<LocalDate> archived = new ArrayList<>();
+        for (LocalDate month = earliest.toLocalDateTime().toLocalDate().withDayOfMonth(1);
+             month.isBefore(cutoff); month = month.plusMonths(1)) {
+            if (archiveMonth(month, partitions.contains(partitionName(month)))) {
+                archived.add(month);
+            }
+        }
+        return archived;
+    }
+
+    private boolean archiveMonth(LocalDate month, boolean ownPartition) {
+        Timestamp from = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+        long clicks = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE
+                + " WHERE clicked_at >= ? AND clicked_at < ?", Long.class, from, to);
+        if (clicks == 0) {
+            return false;
+        }
+        long rolledUp = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(click_count), 0) FROM link_monthly_stats"
+                + " WHERE stat_month = ?", Long.class, month);
+        if (rolledUp != clicks) {
+            log.warn("Not archiving clicks for {}: {} clicks but rollup has {}", month, clicks, rolledUp);
+            return false;
+        }
+
+        Path file = archiveDir.resolve(TABLE + "_" + month.format(ARCHIVE_SUFFIX) + ".csv.gz");
+        transactionTemplate.executeWithoutResult(status -> writeArchive(file, from, to));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (ownPartition) {
+                String partition = partitionName(month);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            } else {
+                jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE clicked_at >= ? AND clicked_at < ?", from, to);
+            }
+        });
+        log.info("Archived {} clicks for {} to {}", clicks, month, file);
+        return true;
+    }
+
+    /**
+     * Streams the month's rows to a temp file and renames it into place, so a crash never
+     * leaves a truncated archive under the final name.
+     */
+    private void writeArchive(Path file, Timestamp from, Timestamp to) {
+        try {
+            Files.createDirectories(archiveDir);
+            Path partial = file.resolveSibling(file.getFileName() + ".part");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(partial)), StandardCharsets.UTF_8))) {
+                writer.write("id,link_id,clicked_at,fraud_valid,credit_micros\n");
+                jdbcTemplate.query("SELECT id, link_id, clicked_at, fraud_valid, credit_micros FROM " + TABLE
+                        + " WHERE clicked_at >= ? AND clicked_at < ? ORDER BY clicked_at", (RowCallbackHandler) rs -> {
+                    try {
+                        LocalDateTime clickedAt = rs.getTimestamp(3).toLocalDateTime();
+                        writer.write(rs.getLong(1) + "," + rs.getLong(2) + "," + clickedAt + ","
+                                + rs.getObject(4) + "," + rs.getLong(5) + "\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, from, to);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write click archive " + file, e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+                        && jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table p"
+                        + " JOIN pg_class c ON c.oid = p.partrelid WHERE c.relname = ?", Long.class, TABLE) > 0));
+    }
+
+    private Set<String> monthlyPartitions() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i"
+                + " JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent"
+                + " WHERE p.relname = ?", String.class, TABLE));
+    }
+
+    static String partitionName(LocalDate month) {
+        return TABLE + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,19 @@
+package com.interview.interview_project.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * A validated click waiting in the ingestion queue to be written to the database.
+ * Credit is in micro-cents (see {@link com.interview.interview_project.model.Credits}).
+ * {@code journalOffset} is the click's position in the {@link ClickJournal}, or
+ * {@link #NOT_JOURNALED} when it was never journaled.
+ */
+public record ClickRecord(Long linkId, LocalDateTime clickedAt, boolean fraudValid, long creditMicros,
+                          long journalOffset) {
+
+    public static final long NOT_JOURNALED = -1;
+
+    public ClickRecord(Long linkId, LocalDateTime clickedAt, boolean fraudValid, long creditMicros) {
+        this(linkId, clickedAt, fraudValid, creditMicros, NOT_JOURNALED);
+    }
+}
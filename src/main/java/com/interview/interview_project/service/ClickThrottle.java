@@ -0,0 +1,222 @@
+package com.interview.interview_project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides on the redirect path whether a click goes on to {@link ClickTrackingService},
+ * so one viral or bot-targeted link can't monopolise fraud checks and inserts.
+ * <ul>
+ *   <li>Repeat clicks with the same {@link ClickContext#fingerprint() fingerprint} (link,
+ *       client address and user agent) within the dedupe window are collapsed into the
+ *       first one, the same key fraud verdicts are cached under.</li>
+ *   <li>Click rates per link are estimated with a count-min sketch over a sliding window,
+ *       so memory stays fixed however many links are clicked. Links above the hot
+ *       threshold are reported as heavy hitters.</li>
+ *   <li>Clicks beyond a link's limit for the window are shed, except for a random sample
+ *       that is still processed so the link keeps earning and showing up in stats.</li>
+ * </ul>
+ * The redirect itself is never throttled, only the click processing behind it.
+ */
+@Component
+public class ClickThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickThrottle.class);
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9e3779b97f4a7c15L, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0xd6e8feb86659fd93L};
+
+    private final Cache<Long, Boolean> recentClicks;
+    private final long windowNanos;
+    private final int sketchMask;
+    private final long hotLinkClicks;
+    private final long linkMaxClicks;
+    private final double excessSampleRate;
+    private final LongSupplier nanoTime;
+
+    private final AtomicReference<Window> window;
+
+    private final Counter duplicates;
+    private final Counter shed;
+    private final Counter sampled;
+
+    @Autowired
+    public ClickThrottle(@Value("${shortlinks.throttle.dedupe-window:10s}") Duration dedupeWindow,
+                         @Value("${shortlinks.throttle.dedupe-max-size:1000000}") long dedupeMaxSize,
+                         @Value("${shortlinks.throttle.window:1s}") Duration window,
+                         @Value("${shortlinks.throttle.sketch-width:4096}") int sketchWidth,
+                         @Value("${shortlinks.throttle.hot-link-clicks:1000}") long hotLinkClicks,
+                         @Value("${shortlinks.throttle.link-max-clicks:5000}") long linkMaxClicks,
+                         @Value("${shortlinks.throttle.excess-sample-rate:0.01}") double excessSampleRate,
+                         MeterRegistry meterRegistry) {
+        this(dedupeWindow, dedupeMaxSize, window, sketchWidth, hotLinkClicks, linkMaxClicks, excessSampleRate,
+                meterRegistry, System::nanoTime);
+    }
+
+    ClickThrottle(Duration dedupeWindow, long dedupeMaxSize, Duration window, int sketchWidth,
+                  long hotLinkClicks, long linkMaxClicks, double excessSampleRate,
+                  MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        if (Integer.bitCount(sketchWidth) != 1) {
+            throw new IllegalArgumentException("shortlinks.throttle.sketch-width must be a power of two");
+        }
+        this.recentClicks = dedupeWindow.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(dedupeMaxSize)
+                .expireAfterWrite(dedupeWindow)
+                .build();
+        this.windowNanos = window.toNanos();
+        this.sketchMask = sketchWidth - 1;
+        this.hotLinkClicks = hotLinkClicks;
+        this.linkMaxClicks = linkMaxClicks;
+        this.excessSampleRate = excessSampleRate;
+        this.nanoTime = nanoTime;
+        this.window = new AtomicReference<>(new Window(nanoTime.getAsLong(), sketchWidth, null));
+
+        this.duplicates = suppressedCounter(meterRegistry, "duplicate");
+        this.shed = suppressedCounter(meterRegistry, "shed");
+        this.sampled = Counter.builder("shortlinks.throttle.sampled")
+                .description("Clicks over a link's limit that were processed as part of the sample")
+                .register(meterRegistry);
+        Gauge.builder("shortlinks.throttle.hot-links", this, throttle -> throttle.hotLinks().size())
+                .description("Links above the hot threshold in the current window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records {@code click} and returns whether it should be processed.
+     */
+    public boolean admit(ClickContext click) {
+        if (recentClicks != null && recentClicks.asMap().putIfAbsent(click.fingerprint(), Boolean.TRUE) != null) {
+            duplicates.increment();
+            return false;
+        }
+
+        long linkId = click.linkId();
+        long now = nanoTime.getAsLong();
+        Window current = currentWindow(now);
+        long estimate = current.add(linkId, now);
+        if (estimate >= hotLinkClicks && current.hotLinks.put(linkId, estimate) == null) {
+            Window previous = current.previous;
+            if (previous == null || !previous.hotLinks.containsKey(linkId)) {
+                log.info("Link {} is hot: ~{} clicks in the last {} ms",
+                        linkId, estimate, Duration.ofNanos(windowNanos).toMillis());
+            }
+        }
+        if (linkMaxClicks > 0 && estimate > linkMaxClicks) {
+            if (ThreadLocalRandom.current().nextDouble() < excessSampleRate) {
+                sampled.increment();
+                return true;
+            }
+            shed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /** Estimated clicks per window for {@code linkId}, deduplicated clicks only. */
+    public long estimate(long linkId) {
+        long now = nanoTime.getAsLong();
+        return currentWindow(now).estimate(linkId, now);
+    }
+
+    /** Links that crossed the hot threshold in the current window, with their estimate at the time. */
+    public Map<Long, Long> hotLinks() {
+        return Map.copyOf(currentWindow(nanoTime.getAsLong()).hotLinks);
+    }
+
+    private Window currentWindow(long now) {
+        Window current = window.get();
+        while (now - current.start >= windowNanos) {
+            // A gap of more than one window leaves nothing worth carrying over.
+            boolean adjacent = now - current.start < 2 * windowNanos;
+            Window next = new Window(adjacent ? current.start + windowNanos : now,
+                    sketchMask + 1, adjacent ? current : null);
+            if (window.compareAndSet(current, next)) {
+                current.previous = null;
+                return next;
+            }
+            current = window.get();
+        }
+        return current;
+    }
+
+    private static Counter suppressedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("shortlinks.throttle.suppressed")
+                .description("Clicks not processed, by reason")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One count-min sketch per window. The sliding estimate is this window's count plus
+     * the previous window's, weighted by how much of it still overlaps the last
+     * {@code windowNanos}.
+     */
+    private final class Window {
+
+        final long start;
+        final AtomicIntegerArray counts;
+        final Map<Long, Long> hotLinks = new ConcurrentHashMap<>();
+        volatile Window previous;
+
+        Window(long start, int width, Window previous) {
+            this.start = start;
+            this.counts = new AtomicIntegerArray(SKETCH_DEPTH * width);
+            this.previous = previous;
+        }
+
+        long add(long linkId, long now) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                min = Math.min(min, counts.incrementAndGet(index(row, linkId)));
+            }
+            return min + previousShare(linkId, now);
+        }
+
+        long estimate(long linkId, long now) {
+            return count(linkId) + previousShare(linkId, now);
+        }
+
+        private int count(long linkId) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                min = Math.min(min, counts.get(index(row, linkId)));
+            }
+            return min;
+        }
+
+        private long previousShare(long linkId, long now) {
+            Window last = previous;
+            if (last == null) {
+                return 0;
+            }
+            double overlap = 1.0 - (double) (now - start) / windowNanos;
+            return overlap <= 0 ? 0 : (long) (last.count(linkId) * overlap);
+        }
+
+        private int index(int row, long linkId) {
+            // MurmurHash3's 64-bit finalizer over a per-row seed, so rows collide independently.
+            long hash = linkId ^ SEEDS[row];
+            hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+            hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return row * (sketchMask + 1) + (int) (hash & sketchMask);
+        }
+    }
+}
@@ -1,40 +1,102 @@
 package com.interview.interview_project.service;
 
-import com.interview.interview_project.model.ClickEvent;
-import com.interview.interview_project.model.Link;
-import com.interview.interview_project.repository.ClickEventRepository;
-import org.springframework.scheduling.annotation.Async;
+import com.interview.interview_project.model.Credits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Handles asynchronous click processing: records the click,
- * runs fraud validation, and awards credit if valid.
+ * Handles asynchronous click processing: runs fraud validation, awards credit
+ * if valid, and hands the click to the ingestion pipeline for a batched write.
+ * Nothing here blocks the caller; the fraud check completes on the click executor.
+ * With the {@link ClickJournal} enabled the redirect only appends the click to the
+ * journal, and {@link ClickJournalConsumer} calls {@link #track} for it.
  */
 @Service
 public class ClickTrackingService {
 
     private static final BigDecimal CREDIT_AMOUNT = new BigDecimal("0.05");
+    private static final long CREDIT_MICROS = Credits.fromDollars(CREDIT_AMOUNT);
+    private static final double CREDIT_DOLLARS = CREDIT_AMOUNT.doubleValue();
 
-    private final ClickEventRepository clickEventRepository;
+    private final ClickIngestionPipeline clickIngestionPipeline;
     private final FraudValidationService fraudValidationService;
+    private final ClickJournal clickJournal;
 
-    public ClickTrackingService(ClickEventRepository clickEventRepository,
-                                FraudValidationService fraudValidationService) {
-        this.clickEventRepository = clickEventRepository;
+    private final Counter validClicks;
+    private final Counter invalidClicks;
+    private final Counter creditsAwarded;
+
+    public ClickTrackingService(ClickIngestionPipeline clickIngestionPipeline,
+                                FraudValidationService fraudValidationService,
+                                ClickJournal clickJournal,
+                                MeterRegistry meterRegistry) {
+        this.clickIngestionPipeline = clickIngestionPipeline;
         this.fraudValidationService = fraudValidationService;
+        this.clickJournal = clickJournal;
+        this.validClicks = clickCounter(meterRegistry, "valid");
+        this.invalidClicks = clickCounter(meterRegistry, "invalid");
+        this.creditsAwarded = Counter.builder("shortlinks.clicks.credits")
+                .description("Credit awarded for valid clicks")
+                .baseUnit("usd")
+                .register(meterRegistry);
     }
 
-    @Async
-    public void processClick(Link link) {
-        ClickEvent click = new ClickEvent(link);
+    /**
+     * Records a click from the redirect path. The context carries the link id, click time and
+     * client fingerprint; the fingerprint is what {@link ClickThrottle} dedupes on and what
+     * fraud validation caches verdicts by. Only the id is needed, so a cached link is handed
+     * over without ever loading the entity.
+     */
+    public void processClick(ClickContext context) {
+        if (clickJournal.isEnabled()) {
+            try {
+                clickJournal.append(context.linkId(), context.clickedAtMillis(), context.fingerprint());
+                return;
+            } catch (UncheckedIOException | IllegalStateException e) {
+                // Disk full or journal closed: the click is still worth counting from memory.
+                clickJournal.appendFailed();
+            }
+        }
+        track(context, ClickRecord.NOT_JOURNALED);
+    }
 
-        boolean valid = fraudValidationService.validate();
+    /**
+     * Validates and enqueues a journaled click read back by {@link ClickJournalConsumer}.
+     * The future fails if the click never reached the ingestion queue.
+     */
+    CompletableFuture<Void> track(ClickJournal.Entry entry) {
+        return track(new ClickContext(entry.linkId(), null, null, entry.clickedAtMillis(), entry.fingerprint()),
+                entry.offset());
+    }
 
-        click.setFraudValid(valid);
-        click.setCreditAwarded(valid ? CREDIT_AMOUNT : BigDecimal.ZERO);
+    private CompletableFuture<Void> track(ClickContext context, long journalOffset) {
+        LocalDateTime clickedAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(context.clickedAtMillis()), ZoneId.systemDefault());
+        return fraudValidationService.validateAsync(context).thenAccept(valid -> {
+            clickIngestionPipeline.enqueue(
+                    new ClickRecord(context.linkId(), clickedAt, valid, valid ? CREDIT_MICROS : 0, journalOffset));
+            // Counted once the click is queued, so a click retried after a failure isn't counted twice.
+            if (valid) {
+                validClicks.increment();
+                creditsAwarded.increment(CREDIT_DOLLARS);
+            } else {
+                invalidClicks.increment();
+            }
+        });
+    }
 
-        clickEventRepository.save(click);
+    private static Counter clickCounter(MeterRegistry meterRegistry, String verdict) {
+        return Counter.builder("shortlinks.clicks")
+                .description("Clicks by fraud verdict")
+                .tag("verdict", verdict)
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,37 @@
+package com.interview.interview_project.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies other nodes' {@link ClusterEvent}s to this node's in-memory state: new or
+ * invalidated links are dropped from the short code cache, and clicks other nodes commit
+ * are added to the hot link totals. After a gap in delivery the cache is cleared and hot
+ * totals are reloaded from the rollup, since events may have been missed.
+ */
+@Component
+public class ClusterCacheSync implements ClusterEventBus.Listener {
+
+    private final ShortCodeCache shortCodeCache;
+    private final LinkCounterStore linkCounterStore;
+
+    public ClusterCacheSync(ClusterEventBus clusterEventBus, ShortCodeCache shortCodeCache,
+                            LinkCounterStore linkCounterStore) {
+        this.shortCodeCache = shortCodeCache;
+        this.linkCounterStore = linkCounterStore;
+        clusterEventBus.subscribe(this);
+    }
+
+    @Override
+    public void onEvent(ClusterEvent event) {
+        switch (event) {
+            case ClusterEvent.LinkChanged changed -> shortCodeCache.invalidate(changed.shortCode());
+            case ClusterEvent.ClicksPersisted persisted -> linkCounterStore.persistedElsewhere(persisted);
+        }
+    }
+
+    @Override
+    public void onGap() {
+        shortCodeCache.invalidateAll();
+        linkCounterStore.reloadHotTotals();
+    }
+}
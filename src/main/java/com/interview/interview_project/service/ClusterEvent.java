@@ -0,0 +1,118 @@
+package com.interview.interview_project.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change one node makes that other nodes' in-memory state has to follow. Events are
+ * encoded as short text payloads (under Postgres' 8000-byte NOTIFY limit) by
+ * {@link #encode()} and read back with {@link #decode(String)}.
+ */
+public sealed interface ClusterEvent {
+
+    /** Links per {@link ClicksPersisted} payload, so the largest payload stays well under 8000 bytes. */
+    int MAX_LINKS_PER_EVENT = 100;
+
+    String encode();
+
+    /**
+     * A link was created, or its cached copy must be dropped. Either way other nodes forget
+     * what they cached for the code, including a "no such code" entry.
+     */
+    record LinkChanged(Type type, String shortCode) implements ClusterEvent {
+
+        public enum Type {
+            CREATED,
+            INVALIDATED
+        }
+
+        @Override
+        public String encode() {
+            return (type == Type.CREATED ? "C:" : "I:") + shortCode;
+        }
+    }
+
+    /**
+     * Click totals per link id that a node's ingestion pipeline just committed to the rollup,
+     * each with the stats version the commit left the link at.
+     */
+    record ClicksPersisted(Map<Long, LinkClicks> links) implements ClusterEvent {
+
+        /**
+         * One link's share of a committed batch. Rollup totals read at {@code statsVersion} or
+         * later already include it.
+         */
+        public record LinkClicks(LinkCounterStore.Totals totals, long statsVersion) {
+        }
+
+        /**
+         * Sums a committed batch per link, tagged with the links' stats versions after the
+         * commit, split into events of at most {@link #MAX_LINKS_PER_EVENT} links.
+         */
+        public static List<ClicksPersisted> of(List<ClickRecord> batch, Map<Long, Long> statsVersions) {
+            Map<Long, LinkCounterStore.Totals> totals = new LinkedHashMap<>();
+            for (ClickRecord click : batch) {
+                totals.merge(click.linkId(), new LinkCounterStore.Totals(1, click.creditMicros()),
+                        LinkCounterStore.Totals::plus);
+            }
+            List<ClicksPersisted> events = new ArrayList<>();
+            Map<Long, LinkClicks> chunk = new LinkedHashMap<>();
+            for (Map.Entry<Long, LinkCounterStore.Totals> entry : totals.entrySet()) {
+                chunk.put(entry.getKey(), new LinkClicks(entry.getValue(),
+                        statsVersions.getOrDefault(entry.getKey(), 0L)));
+                if (chunk.size() == MAX_LINKS_PER_EVENT) {
+                    events.add(new ClicksPersisted(chunk));
+                    chunk = new LinkedHashMap<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                events.add(new ClicksPersisted(chunk));
+            }
+            return events;
+        }
+
+        @Override
+        public String encode() {
+            StringBuilder payload = new StringBuilder("P:");
+            links.forEach((linkId, clicks) -> {
+                if (payload.length() > 2) {
+                    payload.append(',');
+                }
+                payload.append(linkId).append(' ').append(clicks.totals().clicks())
+                        .append(' ').append(clicks.totals().creditMicros())
+                        .append(' ').append(clicks.statsVersion());
+            });
+            return payload.toString();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload isn't an encoded event
+     */
+    static ClusterEvent decode(String payload) {
+        if (payload.length() < 2 || payload.charAt(1) != ':') {
+            throw new IllegalArgumentException("Not a cluster event: " + payload);
+        }
+        String body = payload.substring(2);
+        return switch (payload.charAt(0)) {
+            case 'C' -> new LinkChanged(LinkChanged.Type.CREATED, body);
+            case 'I' -> new LinkChanged(LinkChanged.Type.INVALIDATED, body);
+            case 'P' -> {
+                Map<Long, ClicksPersisted.LinkClicks> links = new LinkedHashMap<>();
+                for (String entry : body.split(",")) {
+                    String[] fields = entry.split(" ");
+                    if (fields.length != 4) {
+                        throw new IllegalArgumentException("Malformed click totals in cluster event: " + payload);
+                    }
+                    links.put(Long.parseLong(fields[0]), new ClicksPersisted.LinkClicks(
+                            new LinkCounterStore.Totals(Long.parseLong(fields[1]), Long.parseLong(fields[2])),
+                            Long.parseLong(fields[3])));
+                }
+                yield new ClicksPersisted(links);
+            }
+            default -> throw new IllegalArgumentException("Unknown cluster event: " + payload);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.interview.interview_project.service;
+
+/**
+ * Carries {@link ClusterEvent}s between the nodes of a deployment. Published events reach
+ * every other node's listeners once the publishing transaction commits (immediately when
+ * there is none); a node never receives its own events.
+ * <p>
+ * Implementations: {@link InProcessClusterEventBus} for a single node or tests, and
+ * {@link PostgresClusterEventBus} over LISTEN/NOTIFY for replicas sharing a database.
+ */
+public interface ClusterEventBus {
+
+    void publish(ClusterEvent event);
+
+    void subscribe(Listener listener);
+
+    /**
+     * Whether other nodes may be listening. Publishers can skip building events that
+     * nobody would receive.
+     */
+    boolean isClustered();
+
+    interface Listener {
+
+        void onEvent(ClusterEvent event);
+
+        /**
+         * Called after the bus lost its connection and may have missed events, once it
+         * is receiving again.
+         */
+        default void onGap() {
+        }
+    }
+}
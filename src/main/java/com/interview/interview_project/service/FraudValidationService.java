@@ -1,24 +1,300 @@
 package com.interview.interview_project.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.interview.interview_project.config.ClickExecutorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simulates fraud validation for click events.
  * Takes 500ms to complete and returns true/false with 50% probability.
+ * <p>
+ * {@link #validateAsync()} coalesces clicks arriving within a short window into one
+ * call to the (simulated) fraud backend, so the 500ms is paid once per batch rather
+ * than once per click and no thread waits on it per click. A click that times out gets the
+ * fallback verdict on the backend executor, so the caller's continuations never run on the
+ * JDK's single shared timeout thread.
+ * <p>
+ * Verdicts are cached by {@link ClickContext#fingerprint()} for a configurable TTL, so a
+ * client clicking the same link again reuses its recent verdict instead of paying for
+ * another check. Fallback verdicts are never cached.
  */
 @Service
-public class FraudValidationService {
+public class FraudValidationService implements SmartLifecycle {
+
+    private static final long CHECK_MILLIS = 500;
+
+    /** Flushes its last window into the click executor before that executor drains. */
+    private static final int PHASE = Integer.MAX_VALUE - 1280;
 
     private final SecureRandom random = new SecureRandom();
 
+    private final Executor backendExecutor;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final boolean fallbackVerdict;
+    private final ScheduledExecutorService windowScheduler;
+    /** Runs timeout checks on the JDK's shared delay thread; they only hand off to the backend executor. */
+    private final Executor timeoutExecutor;
+    private final Cache<Long, Boolean> verdictCache;
+
+    private final Timer checkTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter fallbackCounter;
+
+    private final Object lock = new Object();
+    private List<PendingVerdict> window = new ArrayList<>();
+    private volatile boolean running;
+
+    public FraudValidationService(@Qualifier(ClickExecutorConfig.CLICK_EXECUTOR) Executor backendExecutor,
+                                  @Value("${shortlinks.fraud.batch-window:10ms}") Duration batchWindow,
+                                  @Value("${shortlinks.fraud.max-batch-size:100}") int maxBatchSize,
+                                  @Value("${shortlinks.fraud.timeout:2s}") Duration timeout,
+                                  @Value("${shortlinks.fraud.fallback-verdict:false}") boolean fallbackVerdict,
+                                  @Value("${shortlinks.fraud.verdict-cache.ttl:10m}") Duration verdictTtl,
+                                  @Value("${shortlinks.fraud.verdict-cache.max-size:100000}") long verdictCacheSize,
+                                  MeterRegistry meterRegistry) {
+        this.backendExecutor = backendExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.fallbackVerdict = fallbackVerdict;
+        this.timeoutExecutor = CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS, Runnable::run);
+        this.windowScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fraud-batch-window");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = Math.max(1, batchWindow.toMillis());
+        windowScheduler.scheduleWithFixedDelay(this::flushWindow, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        this.verdictCache = Caffeine.newBuilder()
+                .maximumSize(verdictTtl.isZero() ? 0 : verdictCacheSize)
+                .expireAfterWrite(verdictTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verdictCache, "shortlinks.fraud.verdicts");
+
+        this.checkTimer = Timer.builder("shortlinks.fraud.check")
+                .description("Latency of one call to the fraud backend")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("shortlinks.fraud.batch.size")
+                .description("Clicks validated per fraud backend call")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("shortlinks.fraud.fallback")
+                .description("Clicks that got the fallback verdict after a timeout or a failed or dropped check")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates one click synchronously, reusing a cached verdict for its fingerprint.
+     */
+    public boolean validate(ClickContext context) {
+        Boolean cached = verdictCache.getIfPresent(context.fingerprint());
+        if (cached != null) {
+            return cached;
+        }
+        boolean verdict = validate();
+        verdictCache.put(context.fingerprint(), verdict);
+        return verdict;
+    }
+
     public boolean validate() {
         try {
-            Thread.sleep(500);
+            Thread.sleep(CHECK_MILLIS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
         return random.nextBoolean();
     }
+
+    /**
+     * Returns the cached verdict for the click's fingerprint if there is one, otherwise
+     * queues the click in the current batch window like {@link #validateAsync()} and
+     * caches the backend verdict.
+     */
+    public CompletableFuture<Boolean> validateAsync(ClickContext context) {
+        Boolean cached = verdictCache.getIfPresent(context.fingerprint());
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return enqueue(context.fingerprint());
+    }
+
+    /**
+     * Queues one click for validation in the current batch window. The future completes
+     * with the backend verdict, or with the fallback verdict if the timeout elapses first.
+     */
+    public CompletableFuture<Boolean> validateAsync() {
+        return enqueue(null);
+    }
+
+    private CompletableFuture<Boolean> enqueue(Long fingerprint) {
+        CompletableFuture<Boolean> verdict = new CompletableFuture<>();
+        List<PendingVerdict> full = null;
+        synchronized (lock) {
+            window.add(new PendingVerdict(fingerprint, verdict));
+            if (window.size() >= maxBatchSize) {
+                full = window;
+                window = new ArrayList<>();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        timeoutExecutor.execute(() -> {
+            if (!verdict.isDone()) {
+                fallBack(verdict);
+            }
+        });
+        return verdict;
+    }
+
+    /**
+     * Completes a timed-out click with the fallback verdict on the backend executor, since
+     * the caller's continuations run on whichever thread completes it. Completes it right
+     * away if the executor refuses the task, rather than leave the click waiting for good.
+     */
+    private void fallBack(CompletableFuture<Boolean> verdict) {
+        try {
+            backendExecutor.execute(new FutureTask<>(() -> verdict.complete(fallbackVerdict)) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        verdict.complete(fallbackVerdict);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            verdict.complete(fallbackVerdict);
+        }
+    }
+
+    /**
+     * Validates {@code size} clicks with a single backend call. Fails at once if the
+     * executor refuses or cancels the call (e.g. drops it when full), so the batch gets
+     * the fallback verdict then rather than at the timeout.
+     */
+    public CompletableFuture<List<Boolean>> validateBatch(int size) {
+        CompletableFuture<List<Boolean>> verdicts = new CompletableFuture<>();
+        backendExecutor.execute(new FutureTask<>(() -> checkBatch(size)) {
+            @Override
+            protected void done() {
+                try {
+                    verdicts.complete(get());
+                } catch (CancellationException e) {
+                    verdicts.completeExceptionally(new RejectedExecutionException("Fraud check dropped by the executor"));
+                } catch (ExecutionException e) {
+                    verdicts.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    verdicts.completeExceptionally(e);
+                }
+            }
+        });
+        return verdicts;
+    }
+
+    /**
+     * The simulated fraud backend: one 500ms round trip for the whole batch,
+     * with an independent 50/50 verdict per click.
+     */
+    protected List<Boolean> checkBatch(int size) {
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(CHECK_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Boolean> verdicts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            verdicts.add(random.nextBoolean());
+        }
+        checkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verdicts;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        windowScheduler.shutdown();
+        flushWindow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void flushWindow() {
+        List<PendingVerdict> batch;
+        synchronized (lock) {
+            if (window.isEmpty()) {
+                return;
+            }
+            batch = window;
+            window = new ArrayList<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(List<PendingVerdict> batch) {
+        batchSizeSummary.record(batch.size());
+        CompletableFuture<List<Boolean>> verdicts;
+        try {
+            verdicts = validateBatch(batch.size());
+        } catch (RuntimeException e) {
+            verdicts = CompletableFuture.failedFuture(e);
+        }
+        verdicts.whenComplete((results, error) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingVerdict pending = batch.get(i);
+                boolean verdict = error == null ? results.get(i) : fallbackVerdict;
+                if (error == null && pending.fingerprint() != null) {
+                    verdictCache.put(pending.fingerprint(), verdict);
+                }
+                if (error != null) {
+                    fallbackCounter.increment();
+                }
+                // complete() is false when the caller already timed out onto the fallback
+                if (!pending.verdict().complete(verdict) && error == null) {
+                    fallbackCounter.increment();
+                }
+            }
+        });
+    }
+
+    /** A click waiting in the batch window; a null fingerprint isn't cached. */
+    private record PendingVerdict(Long fingerprint, CompletableFuture<Boolean> verdict) {
+    }
 }
@@ -0,0 +1,49 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.IdBlock;
+import com.interview.interview_project.repository.IdBlockRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves disjoint blocks of IDs from the id_blocks table. Each reservation is one
+ * short transaction holding a row lock, so any number of nodes can share a sequence
+ * without ever handing out the same ID twice.
+ */
+@Service
+public class IdBlockAllocator {
+
+    private final IdBlockRepository idBlockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdBlockAllocator(IdBlockRepository idBlockRepository, PlatformTransactionManager transactionManager) {
+        this.idBlockRepository = idBlockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserves {@code size} consecutive IDs of the named sequence.
+     *
+     * @return the first ID of the block; the block is [start, start + size)
+     */
+    public long allocate(String name, int size) {
+        try {
+            return transactionTemplate.execute(status -> reserve(name, size));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the sequence row first; it exists now, so lock it and retry.
+            return transactionTemplate.execute(status -> reserve(name, size));
+        }
+    }
+
+    private long reserve(String name, int size) {
+        IdBlock block = idBlockRepository.findForUpdate(name)
+                .orElseGet(() -> idBlockRepository.saveAndFlush(new IdBlock(name, 1)));
+        long start = block.getNextValue();
+        block.setNextValue(start + size);
+        return start;
+    }
+}
@@ -0,0 +1,74 @@
+package com.interview.interview_project.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cluster event bus within one JVM. On its own it is the single-node bus: there is nobody
+ * to tell. Tests stand up several "nodes" in one process by {@link #join joining} their
+ * buses into one group, and each event then reaches the other members after commit.
+ */
+public class InProcessClusterEventBus implements ClusterEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessClusterEventBus.class);
+
+    private List<InProcessClusterEventBus> group = new CopyOnWriteArrayList<>(List.of(this));
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds this bus to {@code other}'s group. Only meant for a bus that hasn't joined
+     * another group yet.
+     */
+    public InProcessClusterEventBus join(InProcessClusterEventBus other) {
+        other.group.add(this);
+        group = other.group;
+        return this;
+    }
+
+    @Override
+    public void publish(ClusterEvent event) {
+        if (!isClustered()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(event);
+                }
+            });
+        } else {
+            deliver(event);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public boolean isClustered() {
+        return group.size() > 1;
+    }
+
+    private void deliver(ClusterEvent event) {
+        for (InProcessClusterEventBus member : group) {
+            if (member == this) {
+                continue;
+            }
+            for (Listener listener : member.listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    log.error("Cluster event listener failed for {}", event, e);
+                }
+            }
+        }
+    }
+}
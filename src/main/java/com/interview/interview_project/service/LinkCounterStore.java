@@ -0,0 +1,436 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.LinkTotalsRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Real-time click totals per link, so stats count a click as soon as its fraud verdict
+ * is in instead of after the write-behind flush.
+ * <p>
+ * A click is pending from the moment the ingestion pipeline accepts it until the batch
+ * holding it commits to the link_monthly_stats rollup (or is dropped). For hot links the
+ * persisted totals are tracked here as well, so their totals never need the database.
+ * Other links get their rollup totals plus their pending clicks, plus the clicks this node
+ * committed after the stats version those rollup totals were read at: a lagging replica
+ * (or a snapshot read just before the commit) doesn't have them yet, and they are no longer
+ * pending. Committed clicks are kept for as long as the replica may lag behind the primary
+ * and still be read from: {@code max-lag} plus two lag checks.
+ * <p>
+ * The hot set starts as the most-clicked links of all time, loaded before the pipeline
+ * starts writing, and is re-ranked every {@code shortlinks.counters.hot-refresh-interval}
+ * by the clicks each link received in the interval: the busiest links are admitted, and
+ * hot links that got no clicks, or fewer than the ones displacing them, are evicted.
+ * An evicted link first retires for one interval, in which its clicks already go to the
+ * pending map, so no click still being added to its counter is lost when it is dropped.
+ * <p>
+ * The pipeline brackets each batch write with {@link #beginBatch}/{@link #endBatch}, and
+ * links are only admitted (or reloaded) outside such a bracket. The rollup totals a
+ * counter starts from then either include a batch that is already reported, or miss one
+ * that hasn't committed and will be reported to the counter: no batch commits between the
+ * read and the counter taking over. Other nodes' batches can't be held back that way, so a
+ * counter remembers the stats version its totals were read at, and only adds other nodes'
+ * commits that left the link at a later version. A rollup rebuild holds the same bracket
+ * out, and the hot links' totals are reloaded from the rebuilt rollup before it is released.
+ */
+@Component
+public class LinkCounterStore implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LinkCounterStore.class);
+
+    /** Starts before the ingestion pipeline, so no batch commits while hot links load. */
+    static final int PHASE = ClickIngestionPipeline.PHASE - 100;
+
+    private final LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+    private final int hotLinks;
+    private final long committedRetentionNanos;
+
+    private final Map<Long, HotCounter> hot = new ConcurrentHashMap<>();
+    private final Map<Long, Totals> pending = new ConcurrentHashMap<>();
+    /** Clicks on non-hot links this node committed recently, oldest first; lists are replaced, never changed. */
+    private final Map<Long, List<Committed>> committed = new ConcurrentHashMap<>();
+    /** Read side held around batch writes, write side while loading rollup totals into counters. */
+    private final ReentrantReadWriteLock admission = new ReentrantReadWriteLock();
+    /** Clicks per link since the last refresh; only links clicked in the interval take memory. */
+    private volatile Map<Long, LongAdder> recentClicks = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public LinkCounterStore(LinkMonthlyStatsRepository linkMonthlyStatsRepository,
+                            @Value("${shortlinks.counters.hot-links:10000}") int hotLinks,
+                            @Value("${shortlinks.datasource.replica.max-lag:5s}") Duration replicaMaxLag,
+                            @Value("${shortlinks.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval) {
+        this.linkMonthlyStatsRepository = linkMonthlyStatsRepository;
+        this.hotLinks = hotLinks;
+        this.committedRetentionNanos = replicaMaxLag.plus(lagCheckInterval.multipliedBy(2)).toNanos();
+    }
+
+    /**
+     * Click totals with credit in micro-cents, so concurrent updates are plain long additions.
+     */
+    public record Totals(long clicks, long creditMicros) {
+
+        static final Totals ZERO = new Totals(0, 0);
+
+        Totals plus(Totals other) {
+            return new Totals(clicks + other.clicks, creditMicros + other.creditMicros);
+        }
+    }
+
+    /** Called when the ingestion pipeline queues a click. */
+    public void accepted(ClickRecord click) {
+        addPending(click, 1);
+        if (hotLinks > 0) {
+            Map<Long, LongAdder> clicks = recentClicks;
+            LongAdder count = clicks.get(click.linkId());
+            if (count == null) {
+                count = clicks.computeIfAbsent(click.linkId(), linkId -> new LongAdder());
+            }
+            count.increment();
+        }
+    }
+
+    /** Called for queued clicks that will never be written. */
+    public void discarded(List<ClickRecord> clicks) {
+        for (ClickRecord click : clicks) {
+            addPending(click, -1);
+        }
+    }
+
+    /**
+     * Called by the ingestion pipeline before it starts writing a batch. Must be followed by
+     * {@link #endBatch} once the batch's clicks are reported as persisted or discarded.
+     */
+    public void beginBatch() {
+        admission.readLock().lock();
+    }
+
+    public void endBatch() {
+        admission.readLock().unlock();
+    }
+
+    /**
+     * Called after a batch of clicks has committed to the rollup, with the stats version
+     * the commit left each link at.
+     */
+    public void persisted(List<ClickRecord> clicks, Map<Long, Long> statsVersions) {
+        Map<Long, Totals> cold = new HashMap<>();
+        for (ClickRecord click : clicks) {
+            HotCounter counter = hot.get(click.linkId());
+            if (counter != null && !counter.retiring) {
+                counter.persist(click.creditMicros());
+            } else {
+                cold.merge(click.linkId(), new Totals(1, click.creditMicros()), Totals::plus);
+            }
+        }
+        long now = System.nanoTime();
+        cold.forEach((linkId, totals) -> {
+            Long statsVersion = statsVersions.get(linkId);
+            if (statsVersion != null) {
+                // Recorded before the clicks leave the pending map, so a reader never misses them.
+                committed.compute(linkId, (id, list) -> appendCommitted(list, new Committed(statsVersion, totals, now), now));
+            }
+            mergePending(linkId, new Totals(-totals.clicks(), -totals.creditMicros()));
+        });
+    }
+
+    /**
+     * Called with click totals another node committed to the rollup. Only hot links need
+     * them: other links read their persisted totals from the rollup anyway. Commits at or
+     * below the version a counter's totals were read at are already in them and skipped,
+     * since an event can arrive well after the commit.
+     */
+    public void persistedElsewhere(ClusterEvent.ClicksPersisted event) {
+        event.links().forEach((linkId, clicks) -> {
+            HotCounter counter = hot.get(linkId);
+            if (counter != null) {
+                counter.addPersisted(clicks.totals().clicks(), clicks.totals().creditMicros(), clicks.statsVersion());
+            }
+        });
+    }
+
+    /**
+     * Re-reads the persisted totals of the hot links from the rollup, after this node may
+     * have missed other nodes' {@link #persistedElsewhere} updates.
+     */
+    public void reloadHotTotals() {
+        if (hot.isEmpty()) {
+            return;
+        }
+        admission.writeLock().lock();
+        try {
+            for (LinkTotalsRow row : linkMonthlyStatsRepository.findTotalsByLinkIds(List.copyOf(hot.keySet()))) {
+                HotCounter counter = hot.get(row.linkId());
+                if (counter != null) {
+                    counter.resetPersisted(row.clickCount(), row.creditMicros(), row.statsVersion());
+                }
+            }
+        } finally {
+            admission.writeLock().unlock();
+        }
+        log.info("Reloaded click totals for {} hot links", hot.size());
+    }
+
+    /**
+     * Runs a rebuild of the rollup while no batch of this node is being written, then
+     * reloads the hot links' persisted totals from the rebuilt rollup before the next batch.
+     * {@code rebuild} must have committed when it returns.
+     */
+    public void rebuildingRollup(Runnable rebuild) {
+        admission.writeLock().lock();
+        try {
+            rebuild.run();
+            reloadHotTotals();
+        } finally {
+            admission.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Live totals for a hot link, or empty if the link's persisted totals aren't held here.
+     */
+    public Optional<Totals> hotTotals(Long linkId) {
+        HotCounter counter = hot.get(linkId);
+        if (counter == null || counter.retiring) {
+            return Optional.empty();
+        }
+        return Optional.of(counter.totals().plus(pending.getOrDefault(linkId, Totals.ZERO)));
+    }
+
+    /**
+     * Clicks for a link that rollup totals read at {@code statsVersion} don't include: the
+     * pending ones, and the ones this node committed at a later version.
+     */
+    public Totals pending(Long linkId, long statsVersion) {
+        Totals totals = pending(linkId);
+        for (Committed batch : committed.getOrDefault(linkId, List.of())) {
+            if (batch.statsVersion() > statsVersion) {
+                totals = totals.plus(batch.totals());
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Clicks accepted for a link that are not yet in the rollup.
+     */
+    public Totals pending(Long linkId) {
+        // Clicks accepted while the link wasn't hot, or while it retires, stay in the map.
+        Totals cold = pending.getOrDefault(linkId, Totals.ZERO);
+        HotCounter counter = hot.get(linkId);
+        return counter == null ? cold : counter.pendingTotals().plus(cold);
+    }
+
+    public int hotLinkCount() {
+        return hot.size();
+    }
+
+    /**
+     * Re-ranks the hot set by the clicks each link received since the last refresh. Retired
+     * links are dropped, with their pending clicks moved to the pending map; hot links that
+     * no longer rank retire; newly ranked links are admitted with their totals from the rollup,
+     * read while no batch of this node is being written.
+     */
+    @Scheduled(fixedDelayString = "${shortlinks.counters.hot-refresh-interval:1m}",
+            initialDelayString = "${shortlinks.counters.hot-refresh-interval:1m}")
+    public void refreshHotLinks() {
+        if (!running || hotLinks <= 0) {
+            return;
+        }
+        Map<Long, LongAdder> clicks = recentClicks;
+        recentClicks = new ConcurrentHashMap<>();
+        Map<Long, Long> ranked = new LinkedHashMap<>();
+        clicks.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(hotLinks)
+                .forEach(entry -> ranked.put(entry.getKey(), entry.getValue()));
+
+        int dropped = 0;
+        int retired = 0;
+        for (Map.Entry<Long, HotCounter> entry : hot.entrySet()) {
+            HotCounter counter = entry.getValue();
+            if (counter.retiring) {
+                hot.remove(entry.getKey());
+                Totals remaining = counter.pendingTotals();
+                if (remaining.clicks() != 0 || remaining.creditMicros() != 0) {
+                    mergePending(entry.getKey(), remaining);
+                }
+                dropped++;
+            } else if (!ranked.containsKey(entry.getKey())) {
+                counter.retiring = true;
+                retired++;
+            }
+        }
+
+        // Busiest first, so the ones left out when retiring links still hold slots are the quietest.
+        List<Long> admitted = new ArrayList<>();
+        for (Long linkId : ranked.keySet()) {
+            if (!hot.containsKey(linkId) && hot.size() + admitted.size() < hotLinks) {
+                admitted.add(linkId);
+            }
+        }
+        if (!admitted.isEmpty()) {
+            Map<Long, HotCounter> loaded = new HashMap<>();
+            for (Long linkId : admitted) {
+                loaded.put(linkId, new HotCounter(0, 0, 0));
+            }
+            admission.writeLock().lock();
+            try {
+                for (LinkTotalsRow row : linkMonthlyStatsRepository.findTotalsByLinkIds(admitted)) {
+                    loaded.put(row.linkId(), new HotCounter(row.clickCount(), row.creditMicros(), row.statsVersion()));
+                }
+                loaded.forEach(hot::putIfAbsent);
+            } finally {
+                admission.writeLock().unlock();
+            }
+        }
+        if (dropped > 0 || retired > 0 || !admitted.isEmpty()) {
+            log.info("Refreshed hot links: {} admitted, {} retiring, {} dropped, {} hot",
+                    admitted.size(), retired, dropped, hot.size());
+        }
+    }
+
+    /** Forgets committed clicks that any replica still read from has replayed by now. */
+    @Scheduled(fixedDelayString = "${shortlinks.datasource.replica.lag-check-interval:1s}")
+    public void expireCommitted() {
+        long now = System.nanoTime();
+        for (Long linkId : committed.keySet()) {
+            committed.computeIfPresent(linkId, (id, list) -> appendCommitted(list, null, now));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (hotLinks > 0) {
+            List<LinkTotalsRow> rows = linkMonthlyStatsRepository.findMostClickedTotals(PageRequest.of(0, hotLinks));
+            for (LinkTotalsRow row : rows) {
+                hot.put(row.linkId(), new HotCounter(row.clickCount(), row.creditMicros(), row.statsVersion()));
+            }
+            log.info("Loaded click totals for {} hot links", rows.size());
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void addPending(ClickRecord click, int sign) {
+        long micros = click.creditMicros();
+        HotCounter counter = hot.get(click.linkId());
+        if (counter != null && !counter.retiring) {
+            counter.addPending(sign, sign * micros);
+            return;
+        }
+        mergePending(click.linkId(), new Totals(sign, sign * micros));
+    }
+
+    /** The list without expired entries, plus {@code added} if given; null when that leaves it empty. */
+    private List<Committed> appendCommitted(List<Committed> list, Committed added, long now) {
+        List<Committed> kept = new ArrayList<>();
+        if (list != null) {
+            for (Committed batch : list) {
+                if (now - batch.committedAtNanos() < committedRetentionNanos) {
+                    kept.add(batch);
+                }
+            }
+        }
+        if (added != null) {
+            kept.add(added);
+        }
+        return kept.isEmpty() ? null : List.copyOf(kept);
+    }
+
+    private void mergePending(Long linkId, Totals delta) {
+        // Entries are removed when they drop back to zero, so only links with clicks in flight take memory.
+        pending.merge(linkId, delta, (current, added) -> {
+            Totals sum = current.plus(added);
+            return sum.clicks() == 0 && sum.creditMicros() == 0 ? null : sum;
+        });
+    }
+
+    private record Committed(long statsVersion, Totals totals, long committedAtNanos) {
+    }
+
+    /** Striped counters, since hot links are exactly the ones updated from many threads. */
+    private static final class HotCounter {
+
+        private final LongAdder persistedClicks = new LongAdder();
+        private final LongAdder persistedMicros = new LongAdder();
+        private final LongAdder pendingClicks = new LongAdder();
+        private final LongAdder pendingMicros = new LongAdder();
+        /** Set when the link stops ranking; its clicks go to the pending map until it is dropped. */
+        private volatile boolean retiring;
+        /** Stats version the persisted totals were read at; guarded by this. */
+        private long loadedVersion;
+
+        HotCounter(long clicks, long micros, long statsVersion) {
+            persistedClicks.add(clicks);
+            persistedMicros.add(micros);
+            loadedVersion = statsVersion;
+        }
+
+        void addPending(long clicks, long micros) {
+            pendingClicks.add(clicks);
+            pendingMicros.add(micros);
+        }
+
+        synchronized void addPersisted(long clicks, long micros, long statsVersion) {
+            if (statsVersion <= loadedVersion) {
+                return;
+            }
+            persistedClicks.add(clicks);
+            persistedMicros.add(micros);
+        }
+
+        synchronized void resetPersisted(long clicks, long micros, long statsVersion) {
+            persistedClicks.add(clicks - persistedClicks.sum());
+            persistedMicros.add(micros - persistedMicros.sum());
+            loadedVersion = statsVersion;
+        }
+
+        void persist(long micros) {
+            persistedClicks.increment();
+            persistedMicros.add(micros);
+            pendingClicks.decrement();
+            pendingMicros.add(-micros);
+        }
+
+        Totals pendingTotals() {
+            return new Totals(pendingClicks.sum(), pendingMicros.sum());
+        }
+
+        Totals totals() {
+            return new Totals(persistedClicks.sum() + pendingClicks.sum(), persistedMicros.sum() + pendingMicros.sum());
+        }
+    }
+}
@@ -1,19 +1,34 @@
 package com.interview.interview_project.service;
 
+import com.interview.interview_project.config.ReadWriteRoutingDataSource;
+import com.interview.interview_project.config.ReadWriteRoutingDataSource.Route;
+import com.interview.interview_project.dto.CursorPage;
 import com.interview.interview_project.dto.LinkStatsResponse;
 import com.interview.interview_project.dto.MonthlyBreakdown;
 import com.interview.interview_project.exception.LinkNotFoundException;
-import com.interview.interview_project.model.ClickEvent;
+import com.interview.interview_project.model.Credits;
 import com.interview.interview_project.model.Link;
-import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.model.RedirectLocation;
+import com.interview.interview_project.model.TargetUrlHash;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
 import com.interview.interview_project.repository.LinkRepository;
+import com.interview.interview_project.repository.LinkTargetRow;
+import com.interview.interview_project.repository.MonthlyStatsRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.security.SecureRandom;
+import java.nio.ByteBuffer;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -22,37 +37,86 @@ import java.util.stream.Collectors;
 @Service
 public class LinkService {
 
-    private static final String BASE62_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final int SHORT_CODE_LENGTH = 7;
+    private static final Logger log = LoggerFactory.getLogger(LinkService.class);
     private static final int MAX_RETRIES = 10;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
 
     private final LinkRepository linkRepository;
-    private final ClickEventRepository clickEventRepository;
-    private final SecureRandom random = new SecureRandom();
+    private final LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+    private final ShortCodeCache shortCodeCache;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final LinkCounterStore linkCounterStore;
+    private final ClusterEventBus clusterEventBus;
+    private final StatsSnapshotCache statsSnapshotCache;
+    private final TransactionTemplate transactionTemplate;
 
-    public LinkService(LinkRepository linkRepository, ClickEventRepository clickEventRepository) {
+    @Value("${shortlinks.cache.warm-up-size:1000}")
+    private int warmUpSize;
+
+    public LinkService(LinkRepository linkRepository, LinkMonthlyStatsRepository linkMonthlyStatsRepository,
+                       ShortCodeCache shortCodeCache, ShortCodeGenerator shortCodeGenerator,
+                       LinkCounterStore linkCounterStore, ClusterEventBus clusterEventBus,
+                       StatsSnapshotCache statsSnapshotCache, PlatformTransactionManager transactionManager) {
         this.linkRepository = linkRepository;
-        this.clickEventRepository = clickEventRepository;
+        this.linkMonthlyStatsRepository = linkMonthlyStatsRepository;
+        this.shortCodeCache = shortCodeCache;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.linkCounterStore = linkCounterStore;
+        this.clusterEventBus = clusterEventBus;
+        this.statsSnapshotCache = statsSnapshotCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Creates a short link for the given target URL.
      * If the target URL already has a short link, returns the existing one (idempotent).
+     * An insert rejected by a unique index is retried in a new transaction: either a
+     * concurrent request created the URL, which the retry then finds, or the code was
+     * taken, e.g. by a legacy random code equal to a sequence code, and the retry uses
+     * the next one.
      */
-    @Transactional
     public Link createShortLink(String targetUrl) {
         if (targetUrl == null || targetUrl.isBlank()) {
             throw new IllegalArgumentException("targetUrl is required and cannot be empty");
         }
+        RedirectLocation.of(targetUrl);
 
-        Optional<Link> existing = linkRepository.findByTargetUrl(targetUrl);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> findOrInsert(targetUrl));
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+                log.debug("Creating a link for {} hit a unique index; retrying", targetUrl, e);
+            }
+        }
+    }
+
+    private Link findOrInsert(String targetUrl) {
+        // The full-string check guards against a hash collision; a colliding URL would
+        // then fail the unique index on insert rather than return someone else's link.
+        Optional<Link> existing = linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))
+                .filter(link -> link.getTargetUrl().equals(targetUrl));
         if (existing.isPresent()) {
             return existing.get();
         }
 
         String shortCode = generateUniqueShortCode();
         Link link = new Link(shortCode, targetUrl);
-        return linkRepository.save(link);
+        Link saved = linkRepository.save(link);
+        shortCodeCache.invalidateAfterCommit(shortCode);
+        clusterEventBus.publish(new ClusterEvent.LinkChanged(ClusterEvent.LinkChanged.Type.CREATED, shortCode));
+        return saved;
+    }
+
+    /**
+     * Drops the cached copy of a link on every node, e.g. after its row was changed
+     * directly in the database.
+     */
+    public void invalidate(String shortCode) {
+        shortCodeCache.invalidate(shortCode);
+        clusterEventBus.publish(new ClusterEvent.LinkChanged(ClusterEvent.LinkChanged.Type.INVALIDATED, shortCode));
     }
 
     /**
@@ -64,51 +128,171 @@ public class LinkService {
     }
 
     /**
-     * Returns paginated link stats with monthly breakdowns.
+     * Resolves a short code for the redirect path, served from the in-process cache
+     * and falling back to a projection query (no entity) only on a cache miss.
+     */
+    public CachedLink resolve(String shortCode) {
+        return shortCodeCache.get(shortCode, code -> linkRepository.findTargetByShortCode(code).map(CachedLink::from))
+                .orElseThrow(() -> new LinkNotFoundException(shortCode));
+    }
+
+    /**
+     * Pre-loads the most clicked links into the short code cache so the first
+     * redirects after a restart don't all miss.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpCache() {
+        if (warmUpSize <= 0) {
+            return;
+        }
+        List<Long> linkIds = linkMonthlyStatsRepository.findMostClickedLinkIds(PageRequest.of(0, warmUpSize));
+        int warmed = 0;
+        for (LinkTargetRow row : linkRepository.findTargetsByIdIn(linkIds)) {
+            // One bad row must not stop startup; the link is loaded on demand if it's requested.
+            try {
+                shortCodeCache.put(CachedLink.from(row));
+                warmed++;
+            } catch (RuntimeException e) {
+                log.warn("Skipped link {} while warming the short code cache: {}", row.id(), e.getMessage());
+            }
+        }
+        log.info("Warmed short code cache with {} links", warmed);
+    }
+
+    /**
+     * Returns paginated link stats with monthly breakdowns, read from the
+     * link_monthly_stats rollup rather than raw click events. The whole page costs
+     * the page query (plus its count) and at most one rollup query, whatever the page
+     * size; the rollup is only read for links whose stats changed since the last
+     * request (see {@link StatsSnapshotCache}).
+     * Totals include clicks still waiting to be written (see {@link LinkCounterStore}).
+     * Read from the replica when one is configured and keeping up.
      */
     public Page<LinkStatsResponse> getStats(Pageable pageable) {
-        Page<Link> links = linkRepository.findAll(pageable);
-        DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MM/yyyy");
-
-        return links.map(link -> {
-            long totalClicks = clickEventRepository.countByLinkId(link.getId());
-            BigDecimal totalEarnings = clickEventRepository.sumCreditsByLinkId(link.getId());
-
-            List<ClickEvent> clicks = clickEventRepository.findByLinkId(link.getId());
-            Map<YearMonth, BigDecimal> monthlyMap = new TreeMap<>();
-            for (ClickEvent click : clicks) {
-                YearMonth ym = YearMonth.from(click.getClickedAt());
-                monthlyMap.merge(ym, click.getCreditAwarded(), BigDecimal::add);
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            Page<Link> links = linkRepository.findAll(pageable);
+            Map<Long, StatsSnapshotCache.Snapshot> snapshots = statsSnapshotCache.get(links.getContent(), this::loadSnapshots);
+
+            return links.map(link -> toStatsResponse(link, snapshots.get(link.getId())));
+        }
+    }
+
+    /**
+     * Returns link stats ordered by link id, starting after the given cursor.
+     * Keyset pagination: no OFFSET scan and no total count, so any depth costs the same.
+     * Read from the replica like {@link #getStats}.
+     *
+     * @param after cursor from a previous page, or null/empty for the first page
+     */
+    public CursorPage<LinkStatsResponse> getStatsAfter(String after, int size) {
+        long afterId = after == null || after.isEmpty() ? 0 : decodeCursor(after);
+
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            List<Link> links = linkRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size + 1));
+            boolean hasMore = links.size() > size;
+            if (hasMore) {
+                links = links.subList(0, size);
+            }
+
+            Map<Long, StatsSnapshotCache.Snapshot> snapshots = statsSnapshotCache.get(links, this::loadSnapshots);
+            List<LinkStatsResponse> content = links.stream()
+                    .map(link -> toStatsResponse(link, snapshots.get(link.getId())))
+                    .toList();
+            String nextCursor = hasMore ? encodeCursor(links.get(links.size() - 1).getId()) : null;
+            return new CursorPage<>(content, nextCursor);
+        }
+    }
+
+    private static String encodeCursor(long linkId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(linkId).array());
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
             }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private Map<Long, StatsSnapshotCache.Snapshot> loadSnapshots(List<Link> links) {
+        List<Long> linkIds = links.stream().map(Link::getId).toList();
+        Map<Long, List<MonthlyStatsRow>> rowsByLink = linkMonthlyStatsRepository.findRowsByLinkIds(linkIds).stream()
+                .collect(Collectors.groupingBy(MonthlyStatsRow::linkId));
 
-            List<MonthlyBreakdown> monthlyBreakdown = monthlyMap.entrySet().stream()
-                    .map(e -> new MonthlyBreakdown(e.getKey().format(monthFormat), e.getValue()))
-                    .collect(Collectors.toList());
-
-            return new LinkStatsResponse(
-                    link.getTargetUrl(),
-                    totalClicks,
-                    totalEarnings,
-                    monthlyBreakdown
-            );
-        });
+        Map<Long, StatsSnapshotCache.Snapshot> snapshots = new HashMap<>(links.size());
+        for (Link link : links) {
+            List<MonthlyStatsRow> months = rowsByLink.getOrDefault(link.getId(), List.of());
+            long version = months.isEmpty() ? link.getStatsVersion() : months.get(0).statsVersion();
+            long totalClicks = 0;
+            long totalMicros = 0;
+            List<MonthlyBreakdown> monthlyBreakdown = new ArrayList<>(months.size());
+            for (MonthlyStatsRow month : months) {
+                totalClicks += month.clickCount();
+                totalMicros += month.creditMicros();
+                monthlyBreakdown.add(new MonthlyBreakdown(month.month().format(MONTH_FORMAT),
+                        Credits.toDollars(month.creditMicros())));
+            }
+            snapshots.put(link.getId(), new StatsSnapshotCache.Snapshot(version,
+                    totalClicks, totalMicros, List.copyOf(monthlyBreakdown)));
+        }
+        return snapshots;
+    }
+
+    private LinkStatsResponse toStatsResponse(Link link, StatsSnapshotCache.Snapshot snapshot) {
+        long totalClicks = snapshot.clicks();
+        long totalMicros = snapshot.creditMicros();
+
+        Optional<LinkCounterStore.Totals> hot = linkCounterStore.hotTotals(link.getId());
+        if (hot.isPresent()) {
+            totalClicks = hot.get().clicks();
+            totalMicros = hot.get().creditMicros();
+        } else {
+            // Includes this node's clicks committed after the snapshot, e.g. not yet on the replica.
+            LinkCounterStore.Totals pending = linkCounterStore.pending(link.getId(), snapshot.version());
+            totalClicks += pending.clicks();
+            totalMicros += pending.creditMicros();
+        }
+        return new LinkStatsResponse(link.getTargetUrl(), totalClicks, Credits.toDollars(totalMicros),
+                withUnwrittenEarnings(snapshot.monthlyBreakdown(), totalMicros - snapshot.creditMicros()));
+    }
+
+    /**
+     * Adds earnings the totals include but the snapshot doesn't to the current month, so the
+     * breakdown adds up to the totals. Those clicks are seconds old; right after a month
+     * boundary a few may belong to the month before until they reach the rollup.
+     */
+    private static List<MonthlyBreakdown> withUnwrittenEarnings(List<MonthlyBreakdown> months, long unwrittenMicros) {
+        if (unwrittenMicros <= 0) {
+            return months;
+        }
+        String currentMonth = YearMonth.now().format(MONTH_FORMAT);
+        List<MonthlyBreakdown> result = new ArrayList<>(months);
+        MonthlyBreakdown last = result.isEmpty() ? null : result.get(result.size() - 1);
+        if (last != null && last.getMonth().equals(currentMonth)) {
+            result.set(result.size() - 1, new MonthlyBreakdown(currentMonth,
+                    Credits.toDollars(Credits.fromDollars(last.getEarnings()) + unwrittenMicros)));
+        } else {
+            result.add(new MonthlyBreakdown(currentMonth, Credits.toDollars(unwrittenMicros)));
+        }
+        return result;
     }
 
     private String generateUniqueShortCode() {
+        if (!shortCodeGenerator.requiresUniquenessCheck()) {
+            return shortCodeGenerator.nextCode();
+        }
         for (int i = 0; i < MAX_RETRIES; i++) {
-            String code = generateShortCode();
+            String code = shortCodeGenerator.nextCode();
             if (linkRepository.findByShortCode(code).isEmpty()) {
                 return code;
             }
         }
         throw new RuntimeException("Failed to generate unique short code after " + MAX_RETRIES + " retries");
     }
-
-    private String generateShortCode() {
-        StringBuilder sb = new StringBuilder(SHORT_CODE_LENGTH);
-        for (int i = 0; i < SHORT_CODE_LENGTH; i++) {
-            sb.append(BASE62_CHARS.charAt(random.nextInt(BASE62_CHARS.length())));
-        }
-        return sb.toString();
-    }
 }
@@ -0,0 +1,168 @@
+package com.interview.interview_project.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cluster event bus over Postgres LISTEN/NOTIFY on the shared database, so replicas need
+ * no other infrastructure.
+ * <p>
+ * Publishing runs {@code pg_notify} on the caller's connection. Inside a transaction
+ * Postgres holds the notification until commit and drops it on rollback, so other nodes
+ * never hear about a link or click batch that didn't commit. Each node listens on its own
+ * dedicated connection (not one from the pool) and skips payloads carrying its own node
+ * id. When that connection drops, the bus reconnects and reports a gap to its listeners,
+ * since notifications sent in the meantime are lost.
+ */
+public class PostgresClusterEventBus implements ClusterEventBus, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresClusterEventBus.class);
+
+    static final String CHANNEL = "shortlinks_cluster";
+
+    /** Listens before hot click totals load, so no batch committed after the load is missed. */
+    static final int PHASE = LinkCounterStore.PHASE - 10;
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String nodeId;
+    private final Duration pollInterval;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresClusterEventBus(DataSource dataSource, String url, String username, String password,
+                                   String nodeId, Duration pollInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.nodeId = nodeId;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void publish(ClusterEvent event) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, nodeId + '|' + event.encode());
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "cluster-event-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            listenerThread.join(pollInterval.toMillis() + 5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                if (connectedBefore) {
+                    log.warn("Reconnected to cluster event channel; events sent while disconnected were missed");
+                    listeners.forEach(this::notifyGap);
+                }
+                connectedBefore = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Cluster event listener connection failed; retrying", e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        ClusterEvent event;
+        try {
+            event = ClusterEvent.decode(payload.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed cluster event: {}", payload);
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Cluster event listener failed for {}", event, e);
+            }
+        }
+    }
+
+    private void notifyGap(Listener listener) {
+        try {
+            listener.onGap();
+        } catch (RuntimeException e) {
+            log.error("Cluster event listener failed to resync", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.interview.interview_project.service;
+
+import java.security.SecureRandom;
+
+/**
+ * Draws random 7-character Base62 codes. Codes can collide, so callers must
+ * check for an existing link and retry.
+ */
+public class RandomShortCodeGenerator implements ShortCodeGenerator {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Override
+    public String nextCode() {
+        StringBuilder sb = new StringBuilder(SHORT_CODE_LENGTH);
+        for (int i = 0; i < SHORT_CODE_LENGTH; i++) {
+            sb.append(BASE62_CHARS.charAt(random.nextInt(BASE62_CHARS.length())));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean requiresUniquenessCheck() {
+        return true;
+    }
+}
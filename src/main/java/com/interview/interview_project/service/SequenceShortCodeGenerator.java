@@ -0,0 +1,152 @@
+package com.interview.interview_project.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Derives codes from a cluster-wide sequence: each node reserves a block of IDs from
+ * {@link IdBlockAllocator} and encodes them locally, so codes are unique without any
+ * existence check or coordination beyond one row lock per block.
+ * <p>
+ * They are only unique among themselves: a link created with the random generator can
+ * hold a code the sequence reaches later. The unique index on short_code rejects that
+ * insert, and link creation retries with the next code.
+ * <p>
+ * The next block is always fetched ahead, on a thread of its own: callers usually hold a
+ * connection (the request's transaction), so reserving a block on the caller's thread
+ * would need a second one from the same pool, and enough concurrent callers could starve
+ * each other. A caller only waits when a whole block is used up before its successor
+ * arrives.
+ * <p>
+ * IDs are passed through a keyed permutation of [0, 62^7) before Base62 encoding, so
+ * consecutive links don't get consecutive (guessable) codes. The permutation is a
+ * 4-round Feistel network on 42 bits with cycle-walking back into the code space,
+ * which keeps it a bijection: distinct IDs always give distinct codes.
+ */
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+
+    static final String SEQUENCE_NAME = "short_code";
+
+    /** 62^7: number of distinct 7-character codes. */
+    static final long CODE_SPACE = 3_521_614_606_208L;
+
+    private static final int HALF_BITS = 21;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    private final IdBlockAllocator allocator;
+    private final int blockSize;
+    private final boolean scramble;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    private final ExecutorService prefetcher =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("short-code-blocks").daemon().factory());
+
+    // Not synchronized: a caller can wait for the next block while holding the lock, and a
+    // virtual thread blocked inside synchronized pins its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock.
+    private long next;
+    private long blockEnd;
+    private CompletableFuture<Long> nextBlock;
+
+    public SequenceShortCodeGenerator(IdBlockAllocator allocator, int blockSize, boolean scramble, long secret) {
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+        this.scramble = scramble;
+        long key = secret;
+        for (int i = 0; i < ROUNDS; i++) {
+            key = mix(key + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = key;
+        }
+        this.nextBlock = prefetch();
+    }
+
+    @Override
+    public String nextCode() {
+        lock.lock();
+        try {
+            if (next >= blockEnd) {
+                next = takeBlock();
+                blockEnd = next + blockSize;
+            }
+            return encode(next++);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops fetching blocks; a block fetched but not yet used is skipped, which only leaves a gap. */
+    public void close() {
+        prefetcher.shutdownNow();
+    }
+
+    /** Takes the prefetched block, waiting for it if needed, and starts fetching the one after it. */
+    private long takeBlock() {
+        long start;
+        try {
+            start = nextBlock.join();
+        } catch (CompletionException e) {
+            // The prefetch failed, e.g. while the database was unavailable; fetch again now.
+            nextBlock = prefetch();
+            try {
+                start = nextBlock.join();
+            } catch (CompletionException retry) {
+                throw retry.getCause() instanceof RuntimeException cause ? cause : retry;
+            }
+        }
+        nextBlock = prefetch();
+        return start;
+    }
+
+    private CompletableFuture<Long> prefetch() {
+        return CompletableFuture.supplyAsync(() -> allocator.allocate(SEQUENCE_NAME, blockSize), prefetcher);
+    }
+
+    @Override
+    public boolean requiresUniquenessCheck() {
+        return false;
+    }
+
+    String encode(long id) {
+        if (id < 0 || id >= CODE_SPACE) {
+            throw new IllegalStateException("Short code sequence exhausted at id " + id);
+        }
+        long value = scramble ? permute(id) : id;
+        char[] code = new char[SHORT_CODE_LENGTH];
+        for (int i = SHORT_CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = BASE62_CHARS.charAt((int) (value % 62));
+            value /= 62;
+        }
+        return new String(code);
+    }
+
+    long permute(long id) {
+        long value = feistel(id);
+        while (value >= CODE_SPACE) {
+            value = feistel(value);
+        }
+        return value;
+    }
+
+    private long feistel(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (long roundKey : roundKeys) {
+            long nextRight = left ^ (mix(right ^ roundKey) & HALF_MASK);
+            left = right;
+            right = nextRight;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
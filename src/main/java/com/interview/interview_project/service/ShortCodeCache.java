@@ -0,0 +1,161 @@
+package com.interview.interview_project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * In-process cache in front of the short code lookup used by redirects.
+ * Positive entries are bounded by an approximate byte weight and evicted with
+ * Caffeine's W-TinyLFU policy. Unknown codes are remembered for a short TTL so
+ * repeated 404 probes don't reach the database.
+ * <p>
+ * Every invalidation bumps a generation for the code's stripe. A miss is only remembered
+ * by the caller that ran the load, and only if no invalidation of its stripe happened
+ * since the load started: the load may have read the database before the link committed.
+ */
+@Component
+public class ShortCodeCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    /** Power of two; codes sharing a stripe only cost each other a negative entry. */
+    private static final int GENERATION_STRIPES = 1024;
+    private static final long NOT_LOADED = -1;
+
+    private final Cache<String, CachedLink> links;
+    private final Cache<String, Boolean> missing;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ShortCodeCache(@Value("${shortlinks.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+                          @Value("${shortlinks.cache.negative-max-size:100000}") long negativeMaxSize,
+                          @Value("${shortlinks.cache.negative-ttl:30s}") Duration negativeTtl,
+                          MeterRegistry meterRegistry) {
+        this.links = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String code, CachedLink link) -> weigh(code, link))
+                .recordStats()
+                .build();
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, links, "shortlinks.links");
+        CaffeineCacheMetrics.monitor(meterRegistry, missing, "shortlinks.links.missing");
+    }
+
+    /**
+     * Returns the cached link for the code, loading it with the given loader on a miss.
+     * Concurrent misses for the same code share a single load. An empty load result is
+     * recorded as a negative entry unless the code was invalidated while it loaded.
+     */
+    public Optional<CachedLink> get(String shortCode, Function<String, Optional<CachedLink>> loader) {
+        CachedLink cached = links.getIfPresent(shortCode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (missing.getIfPresent(shortCode) != null) {
+            return Optional.empty();
+        }
+
+        // Stays unset for a caller that joined another caller's load.
+        long[] loadedAt = {NOT_LOADED};
+        CachedLink loaded = links.get(shortCode, code -> {
+            loadedAt[0] = generation(code);
+            return loader.apply(code).orElse(null);
+        });
+        if (loaded == null && loadedAt[0] != NOT_LOADED) {
+            missing.put(shortCode, Boolean.TRUE);
+            // Checked after the put: an invalidation either sees the entry or is seen here.
+            if (generation(shortCode) != loadedAt[0]) {
+                missing.invalidate(shortCode);
+            }
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    public void put(CachedLink link) {
+        bumpGeneration(link.shortCode());
+        missing.invalidate(link.shortCode());
+        links.put(link.shortCode(), link);
+    }
+
+    /**
+     * Drops any cached state for the code, positive or negative.
+     */
+    public void invalidate(String shortCode) {
+        bumpGeneration(shortCode);
+        links.invalidate(shortCode);
+        missing.invalidate(shortCode);
+    }
+
+    /**
+     * Like {@link #invalidate}, but once the current transaction commits (at once without
+     * one). For a link being created: a redirect racing the insert can still load nothing
+     * until the row is visible, so invalidating earlier would not stick. A load that read
+     * before the commit and finishes after it sees the generation change and doesn't
+     * remember its miss.
+     */
+    public void invalidateAfterCommit(String shortCode) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(shortCode);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(shortCode);
+            }
+        });
+    }
+
+    /**
+     * Drops every cached entry, for when this node may have missed invalidations.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        links.invalidateAll();
+        missing.invalidateAll();
+    }
+
+    public long size() {
+        return links.estimatedSize();
+    }
+
+    /** The invalidation generation of the code's stripe. */
+    long generation(String shortCode) {
+        return generations.get(stripe(shortCode));
+    }
+
+    private void bumpGeneration(String shortCode) {
+        generations.incrementAndGet(stripe(shortCode));
+    }
+
+    private static int stripe(String shortCode) {
+        int hash = shortCode.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static int weigh(String code, CachedLink link) {
+        // Rough heap footprint: the strings (UTF-16) plus object headers. The location is
+        // usually the target URL instance itself.
+        int chars = code.length() + link.targetUrl().length();
+        if (link.location() != link.targetUrl()) {
+            chars += link.location().length();
+        }
+        return ENTRY_OVERHEAD_BYTES + 2 * chars;
+    }
+}
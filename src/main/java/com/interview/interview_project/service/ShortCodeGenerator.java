@@ -0,0 +1,18 @@
+package com.interview.interview_project.service;
+
+/**
+ * Produces short codes for new links.
+ */
+public interface ShortCodeGenerator {
+
+    String BASE62_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    int SHORT_CODE_LENGTH = 7;
+
+    String nextCode();
+
+    /**
+     * Whether codes from this generator can repeat and must be checked against
+     * existing links before use.
+     */
+    boolean requiresUniquenessCheck();
+}
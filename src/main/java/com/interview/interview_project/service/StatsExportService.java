@@ -0,0 +1,150 @@
+package com.interview.interview_project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.interview_project.config.ReadWriteRoutingDataSource;
+import com.interview.interview_project.config.ReadWriteRoutingDataSource.Route;
+import com.interview.interview_project.dto.LinkStatsResponse;
+import com.interview.interview_project.dto.MonthlyBreakdown;
+import com.interview.interview_project.model.Credits;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.StatsExportRow;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Streams stats for every link straight from a database cursor to the response,
+ * so memory use doesn't grow with the number of links or months exported.
+ */
+@Service
+public class StatsExportService {
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
+    private static final int FLUSH_EVERY_LINKS = 500;
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private final LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public StatsExportService(LinkMonthlyStatsRepository linkMonthlyStatsRepository, EntityManager entityManager,
+                              ObjectMapper objectMapper) {
+        this.linkMonthlyStatsRepository = linkMonthlyStatsRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes all links with totals and monthly earnings for months in [from, to].
+     * NDJSON emits one {@link LinkStatsResponse} per line; CSV emits one row per link
+     * and month. Either bound may be null for an open range. Streams from the replica when
+     * one is configured and keeping up; the transaction's connection is only taken at the
+     * first query, inside the route.
+     */
+    @Transactional(readOnly = true)
+    public void export(Format format, YearMonth from, YearMonth to, OutputStream out) throws IOException {
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            LocalDate fromMonth = from != null ? from.atDay(1) : LocalDate.of(1, 1, 1);
+            LocalDate toMonth = to != null ? to.atDay(1) : LocalDate.of(9999, 12, 1);
+
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                writer.write("url,month,clicks,earnings\n");
+            }
+
+            try (Stream<StatsExportRow> rows = linkMonthlyStatsRepository.streamForExport(fromMonth, toMonth)) {
+                Iterator<StatsExportRow> iterator = rows.iterator();
+                List<StatsExportRow> linkRows = new ArrayList<>();
+                int linksWritten = 0;
+                while (iterator.hasNext()) {
+                    StatsExportRow row = iterator.next();
+                    if (!linkRows.isEmpty() && !linkRows.get(0).linkId().equals(row.linkId())) {
+                        writeLink(format, linkRows, writer);
+                        linkRows.clear();
+                        if (++linksWritten % FLUSH_EVERY_LINKS == 0) {
+                            writer.flush();
+                            entityManager.clear();
+                        }
+                    }
+                    linkRows.add(row);
+                }
+                if (!linkRows.isEmpty()) {
+                    writeLink(format, linkRows, writer);
+                }
+            }
+            writer.flush();
+        }
+    }
+
+    private void writeLink(Format format, List<StatsExportRow> rows, Writer writer) throws IOException {
+        String url = rows.get(0).targetUrl();
+        if (format == Format.CSV) {
+            for (StatsExportRow row : rows) {
+                if (row.month() != null) {
+                    writer.write(csv(url) + "," + row.month().format(MONTH_FORMAT) + ","
+                            + row.clickCount() + "," + Credits.toDollars(row.creditMicros()).toPlainString() + "\n");
+                }
+            }
+            return;
+        }
+
+        long totalClicks = 0;
+        long totalMicros = 0;
+        List<MonthlyBreakdown> monthlyBreakdown = new ArrayList<>(rows.size());
+        for (StatsExportRow row : rows) {
+            if (row.month() != null) {
+                totalClicks += row.clickCount();
+                totalMicros += row.creditMicros();
+                monthlyBreakdown.add(new MonthlyBreakdown(row.month().format(MONTH_FORMAT),
+                        Credits.toDollars(row.creditMicros())));
+            }
+        }
+        writer.write(objectMapper.writeValueAsString(
+                new LinkStatsResponse(url, totalClicks, Credits.toDollars(totalMicros), monthlyBreakdown)));
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,196 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.LinkMonthlyStats;
+import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.LinkRepository;
+import com.interview.interview_project.repository.LinkStatsVersionRow;
+import com.interview.interview_project.repository.MonthlyClickAggregate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the link_monthly_stats rollup: incremented with every batch of clicks
+ * written by the ingestion pipeline, and rebuildable from click_events. Every change
+ * also bumps the affected links' stats version (see {@link StatsSnapshotCache}). A rebuild
+ * holds this node's batch writes back and resets the hot counters of
+ * {@link LinkCounterStore} to the rebuilt totals.
+ */
+@Service
+public class StatsRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsRollupService.class);
+
+    private static final String POSTGRES_UPSERT = "INSERT INTO link_monthly_stats "
+            + "(link_id, stat_month, click_count, valid_click_count, credit_micros) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (link_id, stat_month) DO UPDATE SET "
+            + "click_count = link_monthly_stats.click_count + EXCLUDED.click_count, "
+            + "valid_click_count = link_monthly_stats.valid_click_count + EXCLUDED.valid_click_count, "
+            + "credit_micros = link_monthly_stats.credit_micros + EXCLUDED.credit_micros";
+
+    /** Standard MERGE for H2 (tests), which has no ON CONFLICT ... DO UPDATE. */
+    private static final String MERGE_UPSERT = "MERGE INTO link_monthly_stats s USING (VALUES ("
+            + "CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+            + "AS d (link_id, stat_month, click_count, valid_click_count, credit_micros) "
+            + "ON s.link_id = d.link_id AND s.stat_month = d.stat_month "
+            + "WHEN MATCHED THEN UPDATE SET click_count = s.click_count + d.click_count, "
+            + "valid_click_count = s.valid_click_count + d.valid_click_count, "
+            + "credit_micros = s.credit_micros + d.credit_micros "
+            + "WHEN NOT MATCHED THEN INSERT (link_id, stat_month, click_count, valid_click_count, credit_micros) "
+            + "VALUES (d.link_id, d.stat_month, d.click_count, d.valid_click_count, d.credit_micros)";
+
+    private final LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+    private final ClickEventRepository clickEventRepository;
+    private final LinkRepository linkRepository;
+    private final LinkCounterStore linkCounterStore;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    @Value("${shortlinks.stats.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public StatsRollupService(LinkMonthlyStatsRepository linkMonthlyStatsRepository,
+                              ClickEventRepository clickEventRepository,
+                              LinkRepository linkRepository,
+                              LinkCounterStore linkCounterStore,
+                              DataSource dataSource,
+                              PlatformTransactionManager transactionManager) {
+        this.linkMonthlyStatsRepository = linkMonthlyStatsRepository;
+        this.clickEventRepository = clickEventRepository;
+        this.linkRepository = linkRepository;
+        this.linkCounterStore = linkCounterStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Folds a batch of clicks into the rollup. Runs in the caller's transaction so the
+     * rollup commits or rolls back together with the click rows. Each link and month is
+     * one atomic upsert, so concurrent writers (other nodes included) adding a link's
+     * first click of a month can't collide on the unique index; rows are written in key
+     * order so they also lock rows in the same order.
+     *
+     * @return each affected link's stats version after this batch, read while the bump
+     *         still holds the link rows locked, so no other batch shares it
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Long> apply(List<ClickRecord> clicks) {
+        Map<RollupKey, LinkMonthlyStats> deltas = new TreeMap<>();
+        for (ClickRecord click : clicks) {
+            RollupKey key = new RollupKey(click.linkId(), click.clickedAt().toLocalDate().withDayOfMonth(1));
+            LinkMonthlyStats delta = deltas.computeIfAbsent(key,
+                    k -> new LinkMonthlyStats(k.linkId(), k.month(), 0, 0, 0));
+            delta.setClickCount(delta.getClickCount() + 1);
+            if (click.fraudValid()) {
+                delta.setValidClickCount(delta.getValidClickCount() + 1);
+            }
+            delta.setCreditMicros(delta.getCreditMicros() + click.creditMicros());
+        }
+        if (deltas.isEmpty()) {
+            return Map.of();
+        }
+
+        List<LinkMonthlyStats> rows = List.copyOf(deltas.values());
+        jdbcTemplate.batchUpdate(upsertSql(), rows, rows.size(), (statement, delta) -> {
+            statement.setLong(1, delta.getLinkId());
+            statement.setObject(2, delta.getMonth());
+            statement.setLong(3, delta.getClickCount());
+            statement.setLong(4, delta.getValidClickCount());
+            statement.setLong(5, delta.getCreditMicros());
+        });
+        List<Long> linkIds = deltas.keySet().stream().map(RollupKey::linkId).distinct().toList();
+        linkRepository.incrementStatsVersions(linkIds);
+        Map<Long, Long> statsVersions = new HashMap<>();
+        for (LinkStatsVersionRow row : linkRepository.findStatsVersionsByIdIn(linkIds)) {
+            statsVersions.put(row.id(), row.statsVersion());
+        }
+        return statsVersions;
+    }
+
+    /**
+     * Recomputes the rollup from click_events. Months before the earliest remaining click
+     * are kept as they are, since their clicks may have been archived by retention. The
+     * delete and re-insert runs while no batch of this node is being written, and hot
+     * counters are reloaded once it has committed.
+     */
+    public void rebuild() {
+        linkCounterStore.rebuildingRollup(() -> transactionTemplate.executeWithoutResult(status -> recompute()));
+    }
+
+    /**
+     * Backfills the rollup on startup when it is empty but clicks exist (first deploy
+     * of the rollup), or always when {@code shortlinks.stats.rebuild-on-startup} is set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfNeeded() {
+        boolean empty = linkMonthlyStatsRepository.count() == 0 && clickEventRepository.count() > 0;
+        if (rebuildOnStartup || empty) {
+            rebuild();
+        }
+    }
+
+    private void recompute() {
+        LocalDateTime earliest = clickEventRepository.findEarliestClickedAt();
+        if (earliest == null) {
+            log.info("No clicks to rebuild link_monthly_stats from");
+            return;
+        }
+        linkMonthlyStatsRepository.deleteFromMonth(earliest.toLocalDate().withDayOfMonth(1));
+        List<MonthlyClickAggregate> aggregates = clickEventRepository.aggregateByLinkAndMonth();
+        linkMonthlyStatsRepository.saveAll(aggregates.stream()
+                .map(a -> new LinkMonthlyStats(a.linkId(), LocalDate.of(a.year(), a.month(), 1),
+                        a.clickCount(), a.validClickCount(), a.creditMicros()))
+                .toList());
+        linkRepository.incrementAllStatsVersions();
+        log.info("Rebuilt link_monthly_stats: {} rows", aggregates.size());
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product;
+            try {
+                product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                        DatabaseMetaData::getDatabaseProductName);
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Cannot determine the database for rollup upserts", e);
+            }
+            sql = "PostgreSQL".equals(product) ? POSTGRES_UPSERT : MERGE_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    private record RollupKey(Long linkId, LocalDate month) implements Comparable<RollupKey> {
+
+        private static final Comparator<RollupKey> ORDER =
+                Comparator.comparing(RollupKey::linkId).thenComparing(RollupKey::month);
+
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
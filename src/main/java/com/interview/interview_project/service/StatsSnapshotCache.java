@@ -0,0 +1,73 @@
+package com.interview.interview_project.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.interview.interview_project.dto.MonthlyBreakdown;
+import com.interview.interview_project.model.Link;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Last computed rollup stats per link, tagged with the link's stats version at the time.
+ * The version is bumped in the same transaction as every rollup change for the link, and
+ * arrives with the link row itself, so a stats page can tell which snapshots are still
+ * current without another query and only re-reads the rollup for links that changed.
+ * Dashboards polling the same pages then cost the page query alone until clicks arrive.
+ */
+@Component
+public class StatsSnapshotCache {
+
+    /**
+     * Rollup totals and monthly breakdown of one link as of stats version {@code version},
+     * read in the same statement as the rows (or from the link row when it has none).
+     */
+    public record Snapshot(long version, long clicks, long creditMicros, List<MonthlyBreakdown> monthlyBreakdown) {
+    }
+
+    private final Cache<Long, Snapshot> snapshots;
+
+    public StatsSnapshotCache(@Value("${shortlinks.stats.snapshot.max-size:100000}") long maxSize,
+                              MeterRegistry meterRegistry) {
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "shortlinks.stats.snapshots");
+    }
+
+    /**
+     * Returns a snapshot per link: cached ones matching the link's stats version, plus the
+     * ones {@code loader} builds for all other links in a single call.
+     */
+    public Map<Long, Snapshot> get(Collection<Link> links, Function<List<Link>, Map<Long, Snapshot>> loader) {
+        Map<Long, Snapshot> result = new HashMap<>();
+        List<Link> stale = new ArrayList<>();
+        for (Link link : links) {
+            Snapshot snapshot = snapshots.getIfPresent(link.getId());
+            if (snapshot != null && snapshot.version() == link.getStatsVersion()) {
+                result.put(link.getId(), snapshot);
+            } else {
+                stale.add(link);
+            }
+        }
+        if (!stale.isEmpty()) {
+            loader.apply(stale).forEach((linkId, snapshot) -> {
+                result.put(linkId, snapshot);
+                // A reader with an older link row (e.g. from a lagging replica) must not
+                // replace a newer snapshot.
+                snapshots.asMap().merge(linkId, snapshot,
+                        (cached, loaded) -> loaded.version() >= cached.version() ? loaded : cached);
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.model.TargetUrlHash;
+import com.interview.interview_project.repository.LinkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills target_url_hash for links created before the column existed, in small
+ * transactions so a large table isn't locked in one go. A no-op once every row
+ * has a hash. db/target-url-hash.sql does the same in SQL and also drops the old
+ * unique index on target_url.
+ */
+@Component
+public class TargetUrlHashBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(TargetUrlHashBackfill.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final LinkRepository linkRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TargetUrlHashBackfill(LinkRepository linkRepository, PlatformTransactionManager transactionManager) {
+        this.linkRepository = linkRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> {
+                List<Link> links = linkRepository.findByTargetUrlHashIsNull(Limit.of(BATCH_SIZE));
+                for (Link link : links) {
+                    link.setTargetUrlHash(TargetUrlHash.of(link.getTargetUrl()));
+                }
+                return links.size();
+            });
+            total += updated;
+        } while (updated == BATCH_SIZE);
+        if (total > 0) {
+            log.info("Backfilled target_url_hash for {} links", total);
+        }
+    }
+}
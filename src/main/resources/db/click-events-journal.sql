@@ -0,0 +1,12 @@
+-- Adds the click journal id and offset to click_events, so clicks replayed from the journal
+-- after a crash are recognized and skipped instead of being written twice. PostgreSQL 11+.
+-- Works whether or not click_events is partitioned (the index includes the partition key), and
+-- is safe to re-run. Existing rows keep NULLs, which never conflict. Can run before or after
+-- click-events-partitioning.sql, which carries the columns and index over to the partitioned
+-- table; after it, this script changes nothing.
+
+ALTER TABLE click_events ADD COLUMN IF NOT EXISTS journal_id BIGINT;
+ALTER TABLE click_events ADD COLUMN IF NOT EXISTS journal_offset BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_click_journal_record
+    ON click_events (journal_id, journal_offset, clicked_at);
@@ -0,0 +1,67 @@
+-- Converts click_events into a table range-partitioned by month on clicked_at. PostgreSQL 13+.
+-- Existing rows before the current month stay where they are: the old table becomes the
+-- partition for everything before it. Rows from the current month on are moved into the new
+-- monthly partitions, so ClickPartitionManager finds its own partitions for the months it
+-- maintains. Retention removes the legacy rows month by month once they fall out of the window.
+-- Run after credit-micros.sql, with the service stopped. click-events-journal.sql can run before
+-- or after this script; the partitioned table gets the journal columns and index either way.
+
+BEGIN;
+
+ALTER TABLE click_events RENAME TO click_events_legacy;
+ALTER INDEX idx_click_link_id RENAME TO idx_click_legacy_link_id;
+ALTER INDEX idx_click_clicked_at RENAME TO idx_click_legacy_clicked_at;
+ALTER INDEX IF EXISTS idx_click_journal_record RENAME TO idx_click_legacy_journal_record;
+
+-- ATTACH needs the same columns on both sides.
+ALTER TABLE click_events_legacy ADD COLUMN IF NOT EXISTS journal_id BIGINT;
+ALTER TABLE click_events_legacy ADD COLUMN IF NOT EXISTS journal_offset BIGINT;
+
+-- The primary key must include the partition key.
+CREATE TABLE click_events (
+    id             BIGINT        NOT NULL,
+    link_id        BIGINT        NOT NULL REFERENCES links (id),
+    clicked_at     TIMESTAMP(6)  NOT NULL,
+    fraud_valid    BOOLEAN,
+    credit_micros  BIGINT        NOT NULL DEFAULT 0,
+    journal_id     BIGINT,
+    journal_offset BIGINT,
+    PRIMARY KEY (id, clicked_at)
+) PARTITION BY RANGE (clicked_at);
+
+CREATE INDEX idx_click_link_id ON click_events (link_id);
+CREATE INDEX idx_click_clicked_at ON click_events (clicked_at);
+CREATE UNIQUE INDEX idx_click_journal_record ON click_events (journal_id, journal_offset, clicked_at);
+
+-- Safety net so an insert never fails if maintenance falls behind. Rows landing here are
+-- removed by retention through the range-delete path.
+CREATE TABLE click_events_default PARTITION OF click_events DEFAULT;
+
+DO $$
+DECLARE
+    this_month DATE := date_trunc('month', now())::date;
+    month      DATE;
+BEGIN
+    -- Same names and bounds as ClickPartitionManager.
+    FOR i IN 0..3 LOOP
+        month := (this_month + make_interval(months => i))::date;
+        EXECUTE format('CREATE TABLE click_events_y%sm%s PARTITION OF click_events FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYY'), to_char(month, 'MM'),
+                       month, (month + interval '1 month')::date);
+    END LOOP;
+
+    -- The live table already has clicks from this month; move them so the legacy range ends
+    -- where the monthly partitions begin.
+    INSERT INTO click_events (id, link_id, clicked_at, fraud_valid, credit_micros, journal_id, journal_offset)
+    SELECT id, link_id, clicked_at, fraud_valid, credit_micros, journal_id, journal_offset
+    FROM click_events_legacy WHERE clicked_at >= this_month;
+    DELETE FROM click_events_legacy WHERE clicked_at >= this_month;
+
+    -- A matching CHECK constraint lets ATTACH skip scanning the legacy rows.
+    EXECUTE format('ALTER TABLE click_events_legacy ADD CONSTRAINT click_events_legacy_range'
+                   ' CHECK (clicked_at < %L)', this_month);
+    EXECUTE format('ALTER TABLE click_events ATTACH PARTITION click_events_legacy'
+                   ' FOR VALUES FROM (MINVALUE) TO (%L)', this_month);
+END $$;
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Moves click_events ids from the IDENTITY column to click_events_seq, which ClickEvent draws
+-- ids from in pooled blocks of 100 so the ingest pipeline can batch inserts. Run it on an
+-- existing database before starting this version: otherwise Hibernate creates the sequence
+-- at 1 and the first batches collide with existing ids. Works whether or not click_events is
+-- partitioned, and is safe to re-run.
+
+CREATE SEQUENCE IF NOT EXISTS click_events_seq INCREMENT BY 100;
+ALTER SEQUENCE click_events_seq INCREMENT BY 100;
+
+-- Hibernate's pooled optimizer uses the block of ids below each value it draws, so the next
+-- value must be at least a block above the current maximum.
+SELECT setval('click_events_seq', COALESCE((SELECT max(id) FROM click_events), 0) + 100);
+
+-- Ids now always come from the sequence.
+ALTER TABLE click_events ALTER COLUMN id DROP IDENTITY IF EXISTS;
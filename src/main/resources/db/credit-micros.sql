@@ -0,0 +1,19 @@
+-- Moves credit amounts from NUMERIC dollars to BIGINT micro-cents (1 USD = 100000000),
+-- matching Credits.fromDollars(). Works on click_events whether or not it is partitioned.
+-- Run with the service stopped: the old and new code read different columns.
+
+BEGIN;
+
+ALTER TABLE click_events ADD COLUMN credit_micros BIGINT NOT NULL DEFAULT 0;
+UPDATE click_events
+   SET credit_micros = (credit_awarded * 100000000)::BIGINT
+ WHERE credit_awarded IS NOT NULL AND credit_awarded <> 0;
+ALTER TABLE click_events DROP COLUMN credit_awarded;
+
+ALTER TABLE link_monthly_stats ADD COLUMN credit_micros BIGINT NOT NULL DEFAULT 0;
+UPDATE link_monthly_stats
+   SET credit_micros = (credit_sum * 100000000)::BIGINT
+ WHERE credit_sum <> 0;
+ALTER TABLE link_monthly_stats DROP COLUMN credit_sum;
+
+COMMIT;
@@ -0,0 +1,14 @@
+-- Moves links ids from the IDENTITY column to links_seq, which Link draws ids from in pooled
+-- blocks of 50 so bulk creation can batch inserts. Run it on an existing database before
+-- starting this version: otherwise Hibernate creates the sequence at 1 and link creation fails
+-- with duplicate keys. Safe to re-run.
+
+CREATE SEQUENCE IF NOT EXISTS links_seq INCREMENT BY 50;
+ALTER SEQUENCE links_seq INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer uses the block of ids below each value it draws, so the next
+-- value must be at least a block above the current maximum.
+SELECT setval('links_seq', COALESCE((SELECT max(id) FROM links), 0) + 50);
+
+-- Ids now always come from the sequence.
+ALTER TABLE links ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,42 @@
+-- Moves link deduplication from the unique index on links.target_url (up to 2048 chars)
+-- to a unique index on a 32-char hash column. PostgreSQL 11+.
+-- The hash matches TargetUrlHash.of(): first 16 bytes of SHA-256 over the UTF-8 URL, hex.
+-- Safe to run while the service is up; the application also backfills missing hashes on startup.
+
+ALTER TABLE links ADD COLUMN IF NOT EXISTS target_url_hash VARCHAR(32);
+
+-- Backfill in batches to keep row locks short.
+DO $$
+DECLARE
+    updated INTEGER;
+BEGIN
+    LOOP
+        UPDATE links
+           SET target_url_hash = encode(substring(sha256(convert_to(target_url, 'UTF8')) FROM 1 FOR 16), 'hex')
+         WHERE id IN (SELECT id FROM links WHERE target_url_hash IS NULL LIMIT 10000);
+        GET DIAGNOSTICS updated = ROW_COUNT;
+        EXIT WHEN updated = 0;
+        COMMIT;
+    END LOOP;
+END $$;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_target_url_hash ON links (target_url_hash);
+
+-- Drop the old unique index and the unique constraint Hibernate created on target_url.
+DROP INDEX IF EXISTS idx_target_url;
+DO $$
+DECLARE
+    constraint_name TEXT;
+BEGIN
+    FOR constraint_name IN
+        SELECT c.conname
+          FROM pg_constraint c
+          JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+         WHERE c.conrelid = 'links'::regclass
+           AND c.contype = 'u'
+           AND a.attname = 'target_url'
+           AND array_length(c.conkey, 1) = 1
+    LOOP
+        EXECUTE format('ALTER TABLE links DROP CONSTRAINT %I', constraint_name);
+    END LOOP;
+END $$;
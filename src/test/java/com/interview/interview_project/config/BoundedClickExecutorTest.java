@@ -0,0 +1,109 @@
+package com.interview.interview_project.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedClickExecutorTest {
+
+    @Test
+    void execute_shouldNeverExceedMaxConcurrency() throws Exception {
+        BoundedClickExecutor executor = newExecutor(4, 1000, BoundedClickExecutor.RejectionPolicy.ABORT);
+        executor.start();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            executor.execute(() -> {
+                maxSeen.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(10);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(maxSeen.get() <= 4, "Saw " + maxSeen.get() + " concurrent tasks");
+        executor.stop();
+    }
+
+    @Test
+    void execute_shouldApplyRejectionPolicyWhenFull() {
+        BoundedClickExecutor executor = newExecutor(1, 2, BoundedClickExecutor.RejectionPolicy.ABORT);
+        executor.start();
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        release.countDown();
+        executor.stop();
+    }
+
+    @Test
+    void stop_shouldDrainPendingTasks() {
+        BoundedClickExecutor executor = newExecutor(2, 100, BoundedClickExecutor.RejectionPolicy.DROP);
+        executor.start();
+        AtomicInteger completed = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                sleep(20);
+                completed.incrementAndGet();
+            });
+        }
+        executor.stop();
+
+        assertEquals(10, completed.get());
+        executor.execute(completed::incrementAndGet);
+        assertEquals(10, completed.get(), "Tasks submitted after stop should be dropped");
+    }
+
+    @Test
+    void execute_shouldCancelDroppedFutures() {
+        BoundedClickExecutor executor = newExecutor(1, 1, BoundedClickExecutor.RejectionPolicy.DROP);
+        executor.start();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+
+        FutureTask<Void> dropped = new FutureTask<>(() -> { }, null);
+        executor.execute(dropped);
+
+        assertTrue(dropped.isCancelled(), "A dropped task nobody will run should not be left pending");
+        release.countDown();
+        executor.stop();
+    }
+
+    private static BoundedClickExecutor newExecutor(int maxConcurrency, int maxPending,
+                                                    BoundedClickExecutor.RejectionPolicy policy) {
+        return new BoundedClickExecutor(Executors.newVirtualThreadPerTaskExecutor(), maxConcurrency, maxPending,
+                policy, Duration.ofSeconds(5), new SimpleMeterRegistry());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
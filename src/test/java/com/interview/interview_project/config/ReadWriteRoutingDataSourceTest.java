@@ -0,0 +1,149 @@
+package com.interview.interview_project.config;
+
+import com.interview.interview_project.config.ReadWriteRoutingDataSource.Route;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource ingest;
+    private ReplicaLagMonitor replicaLagMonitor;
+    private JdbcTemplate replicaTemplate;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        ingest = database("ingest");
+        HikariDataSource replica = database("replica");
+        replicaTemplate = new JdbcTemplate(replica);
+        replicaTemplate.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        replicaTemplate.update("INSERT INTO replica_lag VALUES (0.5)");
+
+        replicaLagMonitor = new ReplicaLagMonitor(replica, "SELECT seconds FROM replica_lag",
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, ingest, replica, replicaLagMonitor::isAvailable));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        ingest.close();
+        replicaLagMonitor.close();
+    }
+
+    @Test
+    void route_shouldUsePrimaryOutsideAScope() {
+        replicaLagMonitor.check();
+
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    void replicaRoute_shouldReadFromReplicaWhileLagIsWithinLimit() {
+        replicaLagMonitor.check();
+
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            assertEquals("replica", currentNode());
+            try (var nested = ReadWriteRoutingDataSource.route(Route.INGEST)) {
+                assertEquals("ingest", currentNode());
+            }
+            assertEquals("replica", currentNode());
+        }
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    void replicaRoute_shouldFallBackToPrimaryUntilFirstCheck() {
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            assertEquals("primary", currentNode());
+        }
+    }
+
+    @Test
+    void replicaRoute_shouldFallBackToPrimaryWhileReplicaLags() {
+        replicaLagMonitor.check();
+        replicaTemplate.update("UPDATE replica_lag SET seconds = 30");
+        replicaLagMonitor.check();
+
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            assertEquals("primary", currentNode());
+        }
+
+        replicaTemplate.update("UPDATE replica_lag SET seconds = 1");
+        replicaLagMonitor.check();
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            assertEquals("replica", currentNode());
+        }
+    }
+
+    @Test
+    void replicaRoute_shouldFallBackToPrimaryWhenLagCannotBeRead() {
+        replicaLagMonitor.check();
+        replicaTemplate.execute("DROP TABLE replica_lag");
+        replicaLagMonitor.check();
+
+        assertFalse(replicaLagMonitor.isAvailable());
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            assertEquals("primary", currentNode());
+        }
+    }
+
+    @Test
+    void replicaRoute_shouldApplyToTransactionBegunBeforeTheScope() {
+        replicaLagMonitor.check();
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        String node = readOnly.execute(status -> {
+            try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+                return currentNode();
+            }
+        });
+
+        assertEquals("replica", node);
+    }
+
+    @Test
+    void noReplica_shouldRouteReplicaReadsToPrimary() {
+        ReplicaLagMonitor none = new ReplicaLagMonitor(null, "SELECT 0", Duration.ofSeconds(5), new SimpleMeterRegistry());
+        none.check();
+        JdbcTemplate template = new JdbcTemplate(new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, ingest, none.dataSource(), none::isAvailable)));
+
+        try (var route = ReadWriteRoutingDataSource.route(Route.REPLICA)) {
+            assertEquals("primary", template.queryForObject("SELECT name FROM node", String.class));
+        }
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource database = new HikariDataSource();
+        database.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        database.setMaximumPoolSize(2);
+        JdbcTemplate template = new JdbcTemplate(database);
+        template.execute("CREATE TABLE node (name VARCHAR(16))");
+        template.update("INSERT INTO node VALUES (?)", name);
+        return database;
+    }
+}
@@ -3,7 +3,11 @@ package com.interview.interview_project.controller;
 import com.interview.interview_project.model.ClickEvent;
 import com.interview.interview_project.model.Link;
 import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
 import com.interview.interview_project.repository.LinkRepository;
+import com.interview.interview_project.service.StatsRollupService;
+import com.interview.interview_project.service.TargetUrlHashBackfill;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +17,6 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static org.hamcrest.Matchers.*;
@@ -34,8 +37,18 @@ class LinkControllerIntegrationTest {
     @Autowired
     private ClickEventRepository clickEventRepository;
 
+    @Autowired
+    private LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+
+    @Autowired
+    private StatsRollupService statsRollupService;
+
+    @Autowired
+    private TargetUrlHashBackfill targetUrlHashBackfill;
+
     @BeforeEach
     void setUp() {
+        linkMonthlyStatsRepository.deleteAll();
         clickEventRepository.deleteAll();
         linkRepository.deleteAll();
     }
@@ -82,6 +95,15 @@ class LinkControllerIntegrationTest {
                 .andExpect(jsonPath("$.message").value(containsString("targetUrl is required")));
     }
 
+    @Test
+    void postLinks_shouldReturn400ForInvalidUri() throws Exception {
+        mockMvc.perform(post("/links")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetUrl\": \"https://fiverr.com/my gig\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("not a valid URI")));
+    }
+
     @Test
     void postLinks_shouldReturn400ForMissingUrl() throws Exception {
         mockMvc.perform(post("/links")
@@ -90,6 +112,83 @@ class LinkControllerIntegrationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void postLinks_shouldFindPreMigrationLinkAfterBackfill() throws Exception {
+        Link legacy = new Link("legacy1", "https://fiverr.com/legacy");
+        legacy.setTargetUrlHash(null);
+        linkRepository.save(legacy);
+
+        targetUrlHashBackfill.backfill();
+
+        mockMvc.perform(post("/links")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetUrl\": \"https://fiverr.com/legacy\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.shortUrl").value(endsWith("/legacy1")));
+        assertEquals(1, linkRepository.count());
+    }
+
+    @Test
+    void postLinksBulk_shouldCreateDedupeAndReportPerItem() throws Exception {
+        mockMvc.perform(post("/links")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetUrl\": \"https://fiverr.com/bulk-existing\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/links/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"targetUrl\": \"https://fiverr.com/bulk-1\"},"
+                                + "{\"targetUrl\": \"https://fiverr.com/bulk-existing\"},"
+                                + "{\"targetUrl\": \"\"},"
+                                + "{\"targetUrl\": \"https://fiverr.com/bulk-1\"},"
+                                + "{\"targetUrl\": \"https://fiverr.com/bulk 2\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("EXISTING"))
+                .andExpect(jsonPath("$[2].status").value("INVALID"))
+                .andExpect(jsonPath("$[2].shortUrl").doesNotExist())
+                .andExpect(jsonPath("$[3].shortUrl").value(notNullValue()))
+                .andExpect(jsonPath("$[4].status").value("INVALID"))
+                .andExpect(jsonPath("$[4].error").value(containsString("not a valid URI")));
+
+        assertEquals(2, linkRepository.count());
+    }
+
+    @Test
+    void postLinksBulk_shouldStreamNdjsonResults() throws Exception {
+        MvcResult result = mockMvc.perform(post("/links/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"targetUrl\": \"https://fiverr.com/nd-1\"}\n"
+                                + "\n"
+                                + "not json\n"
+                                + "{\"targetUrl\": \"https://fiverr.com/nd-2\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("CREATED", JsonPath.read(lines[0], "$.status"));
+        assertEquals("INVALID", JsonPath.read(lines[1], "$.status"));
+        String error = JsonPath.read(lines[1], "$.error");
+        assertTrue(error.startsWith("malformed JSON on line 3"), error);
+        assertEquals("CREATED", JsonPath.read(lines[2], "$.status"));
+
+        String shortUrl = JsonPath.read(lines[0], "$.shortUrl");
+        String shortCode = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://fiverr.com/nd-1"));
+
+        // Let the click land before the next test deletes the links it points to
+        Thread.sleep(1500);
+    }
+
     @Test
     void getShortCode_shouldRedirectToTargetUrl() throws Exception {
         Link link = new Link("testcode", "https://fiverr.com/redirect-target");
@@ -101,6 +200,18 @@ class LinkControllerIntegrationTest {
                 .andExpect(header().string("Location", "https://fiverr.com/redirect-target"));
     }
 
+    @Test
+    void getShortCode_shouldRedirectToAsciiLocation() throws Exception {
+        linkRepository.save(new Link("intl1", "https://fiverr.com/café?q=ü"));
+
+        mockMvc.perform(get("/intl1"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://fiverr.com/caf%C3%A9?q=%C3%BC"));
+
+        // Let the click land before the next test deletes the links it points to
+        Thread.sleep(1500);
+    }
+
     @Test
     void getShortCode_shouldReturn404ForUnknownCode() throws Exception {
         mockMvc.perform(get("/unknowncode"))
@@ -124,6 +235,25 @@ class LinkControllerIntegrationTest {
         assertEquals(1, clickCount, "Click should be recorded");
     }
 
+    @Test
+    void getShortCode_shouldCountRepeatClicksFromOneClientOnce() throws Exception {
+        Link link = new Link("repeat01", "https://fiverr.com/repeat");
+        link.setCreatedAt(LocalDateTime.now());
+        linkRepository.save(link);
+
+        for (String client : new String[] {"10.0.0.1", "10.0.0.1", "10.0.0.2"}) {
+            mockMvc.perform(get("/repeat01").with(request -> {
+                        request.setRemoteAddr(client);
+                        return request;
+                    }))
+                    .andExpect(status().isFound());
+        }
+
+        Thread.sleep(1500);
+
+        assertEquals(2, clickEventRepository.countByLinkId(link.getId()));
+    }
+
     @Test
     void getStats_shouldReturnPaginatedResults() throws Exception {
         // Create a link with click data
@@ -133,13 +263,14 @@ class LinkControllerIntegrationTest {
 
         ClickEvent click1 = new ClickEvent(link);
         click1.setFraudValid(true);
-        click1.setCreditAwarded(new BigDecimal("0.05"));
+        click1.setCreditMicros(5_000_000);
         clickEventRepository.save(click1);
 
         ClickEvent click2 = new ClickEvent(link);
         click2.setFraudValid(false);
-        click2.setCreditAwarded(BigDecimal.ZERO);
+        click2.setCreditMicros(0);
         clickEventRepository.save(click2);
+        statsRollupService.rebuild();
 
         mockMvc.perform(get("/stats").param("page", "0").param("size", "10"))
                 .andExpect(status().isOk())
@@ -149,6 +280,30 @@ class LinkControllerIntegrationTest {
                 .andExpect(jsonPath("$.content[0].totalEarnings").value(0.05));
     }
 
+    @Test
+    void getStats_shouldIncludeClicksRecordedThroughRedirect() throws Exception {
+        Link link = new Link("rollup1", "https://fiverr.com/rollup");
+        link.setCreatedAt(LocalDateTime.now());
+        linkRepository.save(link);
+
+        // Two different clients, since repeat clicks from one client are collapsed
+        for (String client : new String[] {"10.0.0.1", "10.0.0.2"}) {
+            mockMvc.perform(get("/rollup1").with(request -> {
+                        request.setRemoteAddr(client);
+                        return request;
+                    }))
+                    .andExpect(status().isFound());
+        }
+
+        // Wait for fraud validation (500ms) and the batched write
+        Thread.sleep(1500);
+
+        mockMvc.perform(get("/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].totalClicks").value(2))
+                .andExpect(jsonPath("$.content[0].monthlyBreakdown", hasSize(1)));
+    }
+
     @Test
     void getStats_shouldReturnEmptyForNoLinks() throws Exception {
         mockMvc.perform(get("/stats"))
@@ -157,10 +312,100 @@ class LinkControllerIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").value(0));
     }
 
+    @Test
+    void getStats_withCursorShouldWalkAllLinks() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Link link = new Link("cursor" + i, "https://fiverr.com/cursor-" + i);
+            link.setCreatedAt(LocalDateTime.now());
+            linkRepository.save(link);
+        }
+
+        MvcResult first = mockMvc.perform(get("/stats").param("after", "").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].url").value("https://fiverr.com/cursor-1"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/stats").param("after", cursor).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].url").value("https://fiverr.com/cursor-3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getStats_shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/stats").param("after", "not-a-cursor!"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Invalid cursor")));
+    }
+
+    @Test
+    void exportStats_shouldStreamNdjsonWithinMonthRange() throws Exception {
+        Link link = new Link("export1", "https://fiverr.com/export");
+        link.setCreatedAt(LocalDateTime.now());
+        linkRepository.save(link);
+        saveClick(link, LocalDateTime.of(2026, 1, 15, 10, 0), true);
+        saveClick(link, LocalDateTime.of(2026, 2, 3, 10, 0), true);
+        saveClick(link, LocalDateTime.of(2026, 3, 9, 10, 0), false);
+        statsRollupService.rebuild();
+
+        MvcResult result = mockMvc.perform(get("/stats/export").param("from", "2026-02").param("to", "2026-03"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(1, lines.length);
+        assertEquals("https://fiverr.com/export", JsonPath.read(lines[0], "$.url"));
+        assertEquals(2, (int) JsonPath.read(lines[0], "$.totalClicks"));
+        assertEquals("02/2026", JsonPath.read(lines[0], "$.monthlyBreakdown[0].month"));
+    }
+
+    @Test
+    void exportStats_shouldStreamCsvRowPerMonth() throws Exception {
+        Link link = new Link("export2", "https://fiverr.com/export,csv");
+        link.setCreatedAt(LocalDateTime.now());
+        linkRepository.save(link);
+        saveClick(link, LocalDateTime.of(2026, 1, 15, 10, 0), true);
+        saveClick(link, LocalDateTime.of(2026, 2, 3, 10, 0), false);
+        statsRollupService.rebuild();
+
+        MvcResult result = mockMvc.perform(get("/stats/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("url,month,clicks,earnings\n"
+                + "\"https://fiverr.com/export,csv\",01/2026,1,0.05\n"
+                + "\"https://fiverr.com/export,csv\",02/2026,1,0.00\n", body);
+    }
+
+    @Test
+    void exportStats_shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/stats/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getStats_shouldRejectInvalidPageSize() throws Exception {
         mockMvc.perform(get("/stats").param("size", "200"))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value(containsString("Page size")));
     }
+
+    private void saveClick(Link link, LocalDateTime clickedAt, boolean valid) {
+        clickEventRepository.save(new ClickEvent(link, clickedAt, valid,
+                valid ? 5_000_000 : 0));
+    }
 }
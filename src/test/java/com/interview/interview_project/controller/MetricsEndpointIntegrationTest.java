@@ -0,0 +1,45 @@
+package com.interview.interview_project.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheus_shouldExposeRequestRepositoryAndPoolMetrics() throws Exception {
+        MvcResult created = mockMvc.perform(post("/links")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetUrl\": \"https://fiverr.com/metrics\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String shortUrl = JsonPath.read(created.getResponse().getContentAsString(), "$.shortUrl");
+        mockMvc.perform(get(shortUrl.substring(shortUrl.lastIndexOf('/'))))
+                .andExpect(status().isFound());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("uri=\"/{shortCode}\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("shortlinks_clicks_total{")))
+                .andExpect(content().string(containsString("shortlinks_click_executor_queued")));
+    }
+}
@@ -0,0 +1,52 @@
+package com.interview.interview_project.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreditsTest {
+
+    @Test
+    void toDollars_shouldMatchBigDecimalSumOfClickCredits() {
+        BigDecimal credit = new BigDecimal("0.05");
+        long creditMicros = Credits.fromDollars(credit);
+
+        BigDecimal expected = BigDecimal.ZERO;
+        long micros = 0;
+        Random random = new Random(17);
+        for (int i = 0; i < 1_000_000; i++) {
+            if (random.nextBoolean()) {
+                expected = expected.add(credit);
+                micros += creditMicros;
+            }
+        }
+
+        assertEquals(expected, Credits.toDollars(micros));
+    }
+
+    @Test
+    void toDollars_shouldKeepTwoDecimalPlacesForWholeCents() {
+        assertEquals("0.00", Credits.toDollars(0).toPlainString());
+        assertEquals("0.05", Credits.toDollars(5_000_000).toPlainString());
+        assertEquals("12.30", Credits.toDollars(1_230_000_000).toPlainString());
+        assertEquals("-0.05", Credits.toDollars(-5_000_000).toPlainString());
+        assertEquals("0.00001", Credits.toDollars(1_000).toPlainString());
+    }
+
+    @Test
+    void fromDollars_shouldRoundTripAmountsUpToEightDecimals() {
+        for (String amount : new String[] {"0.05", "0.10", "250.25", "0.00000001", "92233720368.54775807"}) {
+            BigDecimal dollars = new BigDecimal(amount);
+            assertEquals(0, dollars.compareTo(Credits.toDollars(Credits.fromDollars(dollars))), amount);
+        }
+    }
+
+    @Test
+    void fromDollars_shouldRejectAmountsItCannotHoldExactly() {
+        assertThrows(ArithmeticException.class, () -> Credits.fromDollars(new BigDecimal("0.000000001")));
+        assertThrows(ArithmeticException.class, () -> Credits.fromDollars(new BigDecimal("92233720368.54775808")));
+    }
+}
@@ -0,0 +1,257 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.ClickEvent;
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.repository.JournaledClickRow;
+import com.interview.interview_project.repository.LinkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickIngestionPipelineTest {
+
+    @Mock
+    private ClickEventRepository clickEventRepository;
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @Mock
+    private StatsRollupService statsRollupService;
+
+    @Mock
+    private ClickJournal clickJournal;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(linkRepository.getReferenceById(any())).thenReturn(new Link("abc1234", "https://fiverr.com/gig"));
+        lenient().when(clickEventRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<ClickEvent> events = invocation.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(events.size());
+            }
+            return events;
+        });
+    }
+
+    @Test
+    void stop_shouldFlushEverythingInBatches() {
+        ClickIngestionPipeline pipeline = newPipeline(10_000, 100);
+        pipeline.start();
+
+        for (int i = 0; i < 250; i++) {
+            assertTrue(pipeline.enqueue(click()));
+        }
+        pipeline.stop();
+
+        assertEquals(250, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 100), "Batches exceed max size: " + batchSizes);
+        assertEquals(0, pipeline.queueDepth());
+    }
+
+    @Test
+    void enqueue_shouldDropWhenNotRunning() {
+        ClickIngestionPipeline pipeline = newPipeline(2, 100);
+
+        assertFalse(pipeline.enqueue(click()));
+        verify(clickEventRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void failedBatch_shouldBeRedeliveredFromJournalAndNotCheckpointed(@TempDir Path dir) throws Exception {
+        ClickJournal journal = new ClickJournal(true, dir, 1024, ClickJournal.FsyncPolicy.NEVER,
+                Duration.ofHours(1), 100, new SimpleMeterRegistry());
+        journal.start();
+        doThrow(new QueryTimeoutException("database unavailable"))
+                .doAnswer(invocation -> invocation.getArgument(0))
+                .when(clickEventRepository).saveAll(any());
+        ClickIngestionPipeline pipeline = newPipeline(journal, 100, 100);
+        pipeline.start();
+        try {
+            journal.append(1L, 1000L, 10L);
+            journal.append(1L, 2000L, 20L);
+            for (ClickJournal.Entry entry = journal.poll(); entry != null; entry = journal.poll()) {
+                assertTrue(pipeline.enqueue(fromJournal(entry)));
+            }
+
+            List<ClickRecord> redelivered = new ArrayList<>();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (redelivered.size() < 2 && System.nanoTime() < deadline) {
+                ClickRecord click = journal.pollRedelivered();
+                if (click != null) {
+                    redelivered.add(click);
+                }
+            }
+            assertEquals(List.of(0L, 1L), redelivered.stream().map(ClickRecord::journalOffset).toList());
+            assertTrue(redelivered.stream().allMatch(ClickRecord::fraudValid), "Redelivery must keep the verdict");
+            assertNull(journal.poll());
+            journal.sync();
+            assertEquals(0, journal.checkpoint(), "Failed clicks must not be checkpointed");
+            assertEquals(2, journal.inFlightCount());
+
+            redelivered.forEach(pipeline::enqueue);
+            pipeline.stop();
+            journal.sync();
+            assertEquals(2, journal.checkpoint());
+            assertEquals(0, journal.inFlightCount());
+        } finally {
+            pipeline.stop();
+            journal.stop();
+        }
+    }
+
+    @Test
+    void queueFull_shouldKeepJournaledClicksForReplay(@TempDir Path dir) throws Exception {
+        ClickJournal journal = new ClickJournal(true, dir, 1024, ClickJournal.FsyncPolicy.NEVER,
+                Duration.ofHours(1), 100, new SimpleMeterRegistry());
+        journal.start();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        }).when(clickEventRepository).saveAll(any());
+        ClickIngestionPipeline pipeline = newPipeline(journal, 1, 1);
+        pipeline.start();
+        try {
+            for (int i = 0; i < 3; i++) {
+                journal.append(1L, 1000L * (i + 1), i);
+            }
+            List<ClickRecord> clicks = new ArrayList<>();
+            for (ClickJournal.Entry entry = journal.poll(); entry != null; entry = journal.poll()) {
+                clicks.add(fromJournal(entry));
+            }
+
+            assertTrue(pipeline.enqueue(clicks.get(0)));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            assertTrue(pipeline.enqueue(clicks.get(1)));
+            assertFalse(pipeline.enqueue(clicks.get(2)), "Queue is full");
+
+            release.countDown();
+            pipeline.stop();
+            journal.sync();
+            assertEquals(2, journal.checkpoint(), "A click dropped from a full queue must not be checkpointed");
+            assertEquals(1, journal.inFlightCount());
+        } finally {
+            release.countDown();
+            pipeline.stop();
+            journal.stop();
+        }
+
+        ClickJournal restarted = new ClickJournal(true, dir, 1024, ClickJournal.FsyncPolicy.NEVER,
+                Duration.ofHours(1), 100, new SimpleMeterRegistry());
+        restarted.start();
+        try {
+            ClickJournal.Entry replayed = restarted.poll();
+            assertNotNull(replayed);
+            assertEquals(2, replayed.offset());
+            assertEquals(3000L, replayed.clickedAtMillis());
+            assertNull(restarted.poll());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void constraintViolation_shouldDropOnlyTheOffendingClicks() {
+        doAnswer(invocation -> {
+            Link link = new Link("abc1234", "https://fiverr.com/gig");
+            link.setId(invocation.getArgument(0));
+            return link;
+        }).when(linkRepository).getReferenceById(any());
+        doAnswer(invocation -> {
+            List<ClickEvent> events = invocation.getArgument(0);
+            if (events.stream().anyMatch(event -> event.getLink().getId() == 99L)) {
+                throw new DataIntegrityViolationException("link 99 does not exist");
+            }
+            synchronized (batchSizes) {
+                batchSizes.add(events.size());
+            }
+            return events;
+        }).when(clickEventRepository).saveAll(any());
+        ClickIngestionPipeline pipeline = newPipeline(10_000, 100);
+        pipeline.start();
+
+        pipeline.enqueue(click());
+        pipeline.enqueue(new ClickRecord(99L, LocalDateTime.now(), true, 5_000_000));
+        pipeline.enqueue(click());
+        pipeline.stop();
+
+        assertEquals(2, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        verify(clickJournal, never()).redeliver(any(), any());
+    }
+
+    @Test
+    void replayedClicks_shouldBeSkippedWhenAlreadyWritten() {
+        LocalDateTime clickedAt = LocalDateTime.of(2026, 3, 1, 12, 0);
+        ClickRecord written = new ClickRecord(1L, clickedAt, true, 5_000_000, 7);
+        ClickRecord fresh = new ClickRecord(1L, clickedAt, true, 5_000_000, 8);
+        // Offset 9 was reused after a host crash: same offset, different click.
+        ClickRecord reused = new ClickRecord(1L, clickedAt.plusSeconds(1), true, 5_000_000, 9);
+        when(clickJournal.id()).thenReturn(42L);
+        when(clickEventRepository.findJournaled(eq(42L), any())).thenReturn(List.of(
+                new JournaledClickRow(7L, clickedAt), new JournaledClickRow(9L, clickedAt)));
+        List<ClickRecord> completed = new ArrayList<>();
+        doAnswer(invocation -> completed.addAll(invocation.getArgument(0))).when(clickJournal).completed(any());
+        ClickIngestionPipeline pipeline = newPipeline(10_000, 100);
+        pipeline.start();
+
+        pipeline.enqueue(written);
+        pipeline.enqueue(fresh);
+        pipeline.enqueue(reused);
+        pipeline.stop();
+
+        assertEquals(List.of(2), batchSizes);
+        verify(statsRollupService).apply(List.of(fresh, reused));
+        assertEquals(List.of(written, fresh, reused), completed);
+    }
+
+    private ClickIngestionPipeline newPipeline(int capacity, int batchSize) {
+        return newPipeline(clickJournal, capacity, batchSize);
+    }
+
+    private ClickIngestionPipeline newPipeline(ClickJournal journal, int capacity, int batchSize) {
+        return new ClickIngestionPipeline(clickEventRepository, linkRepository, statsRollupService,
+                new LinkCounterStore(null, 0, Duration.ofSeconds(5), Duration.ofSeconds(1)), journal, new InProcessClusterEventBus(), transactionManager,
+                new SimpleMeterRegistry(), capacity, batchSize, Duration.ofMillis(20), Duration.ofMillis(10),
+                Duration.ofMillis(50));
+    }
+
+    private static ClickRecord fromJournal(ClickJournal.Entry entry) {
+        return new ClickRecord(entry.linkId(), LocalDateTime.now(), true, 5_000_000, entry.offset());
+    }
+
+    private static ClickRecord click() {
+        return new ClickRecord(1L, LocalDateTime.now(), true, 5_000_000);
+    }
+}
@@ -0,0 +1,167 @@
+package com.interview.interview_project.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickJournalTest {
+
+    @TempDir
+    private Path dir;
+
+    private final List<ClickJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(ClickJournal::stop);
+    }
+
+    @Test
+    void poll_shouldReturnAppendedClicksInOrderAndCheckpointPastCompletedOnes() throws Exception {
+        ClickJournal journal = start(1024, 10);
+        journal.append(7L, 1000L, 70L);
+        journal.append(8L, 2000L, 80L);
+
+        ClickJournal.Entry first = journal.poll();
+        ClickJournal.Entry second = journal.poll();
+        assertNull(journal.poll());
+        assertEquals(new ClickJournal.Entry(0, 7L, 1000L, 70L), first);
+        assertEquals(new ClickJournal.Entry(1, 8L, 2000L, 80L), second);
+
+        journal.completed(List.of(click(second)));
+        journal.sync();
+        assertEquals(0, journal.checkpoint());
+
+        journal.completed(List.of(click(first)));
+        journal.sync();
+        assertEquals(2, journal.checkpoint());
+        assertEquals(0, journal.inFlightCount());
+    }
+
+    @Test
+    void poll_shouldStopAtMaxInFlight() {
+        ClickJournal journal = start(1024, 2);
+        for (long i = 0; i < 3; i++) {
+            journal.append(i, i, 0L);
+        }
+
+        ClickJournal.Entry first = journal.poll();
+        assertNotNull(journal.poll());
+        assertNull(journal.poll());
+
+        journal.completed(List.of(click(first)));
+        assertEquals(2, journal.poll().offset());
+    }
+
+    @Test
+    void retry_shouldPollTheClickAgainAndKeepItInFlight() throws Exception {
+        ClickJournal journal = start(1024, 10);
+        journal.append(7L, 1000L, 70L);
+        journal.append(8L, 2000L, 80L);
+        ClickJournal.Entry failed = journal.poll();
+
+        journal.retry(failed.offset(), Duration.ZERO);
+
+        assertEquals(failed, journal.poll());
+        assertEquals(1, journal.poll().offset());
+        journal.sync();
+        assertEquals(0, journal.checkpoint());
+        assertEquals(2, journal.inFlightCount());
+    }
+
+    @Test
+    void start_shouldReplayClicksAfterTheCheckpointWhenNotStoppedCleanly() throws Exception {
+        ClickJournal crashed = start(1024, 10);
+        for (long i = 0; i < 3; i++) {
+            crashed.append(100 + i, i, -i);
+        }
+        ClickJournal.Entry persisted = crashed.poll();
+        crashed.poll();
+        crashed.completed(List.of(click(persisted)));
+        crashed.sync();
+
+        ClickJournal restarted = start(1024, 10);
+
+        assertEquals(1, restarted.checkpoint());
+        assertEquals(crashed.id(), restarted.id(), "Replayed offsets must keep the journal id they were written with");
+        assertEquals(new ClickJournal.Entry(1, 101L, 1L, -1L), restarted.poll());
+        assertEquals(new ClickJournal.Entry(2, 102L, 2L, -2L), restarted.poll());
+        assertNull(restarted.poll());
+        assertEquals(3, restarted.append(103L, 3L, 0L));
+    }
+
+    @Test
+    void sync_shouldDeleteSegmentsBelowTheCheckpoint() throws Exception {
+        ClickJournal journal = start(2 * ClickJournal.RECORD_BYTES, 10);
+        for (long i = 0; i < 5; i++) {
+            journal.append(i, i, 0L);
+        }
+        assertEquals(3, segmentFiles().size());
+
+        List<ClickRecord> clicks = new ArrayList<>();
+        for (ClickJournal.Entry entry = journal.poll(); entry != null; entry = journal.poll()) {
+            clicks.add(click(entry));
+        }
+        journal.completed(clicks);
+        journal.sync();
+
+        assertEquals(List.of("00000000000000000004.journal"), segmentFiles());
+        journal.stop();
+        ClickJournal restarted = start(2 * ClickJournal.RECORD_BYTES, 10);
+        assertNull(restarted.poll());
+        assertEquals(5, restarted.append(5L, 5L, 0L));
+    }
+
+    @Test
+    void start_shouldTruncateATornRecord() throws Exception {
+        ClickJournal crashed = start(1024, 10);
+        crashed.append(1L, 1L, 0L);
+        crashed.append(2L, 2L, 0L);
+        crashed.stop();
+        try (FileChannel channel = FileChannel.open(dir.resolve(segmentFiles().get(0)), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 99L), ClickJournal.RECORD_BYTES + 8);
+        }
+
+        ClickJournal restarted = start(1024, 10);
+
+        assertEquals(1, restarted.appendedUpTo());
+        assertEquals(1L, restarted.poll().linkId());
+        assertNull(restarted.poll());
+        assertEquals(1, restarted.append(3L, 3L, 0L));
+    }
+
+    private ClickJournal start(long segmentBytes, int maxInFlight) {
+        ClickJournal journal = new ClickJournal(true, dir, segmentBytes, ClickJournal.FsyncPolicy.INTERVAL,
+                Duration.ofHours(1), maxInFlight, new SimpleMeterRegistry());
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private List<String> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".journal"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static ClickRecord click(ClickJournal.Entry entry) {
+        return new ClickRecord(entry.linkId(), LocalDateTime.now(), true, 0, entry.offset());
+    }
+}
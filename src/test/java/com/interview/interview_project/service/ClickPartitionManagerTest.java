@@ -0,0 +1,113 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.ClickEvent;
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.model.LinkMonthlyStats;
+import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.LinkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ClickPartitionManagerTest {
+
+    private static final LocalDate OLD_MONTH = LocalDate.of(2025, 1, 1);
+    private static final LocalDate RECENT_MONTH = LocalDate.of(2026, 6, 1);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private ClickEventRepository clickEventRepository;
+
+    @Autowired
+    private LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+
+    @Autowired
+    private StatsRollupService statsRollupService;
+
+    @TempDir
+    private Path archiveDir;
+
+    private ClickPartitionManager manager;
+    private Link link;
+
+    @BeforeEach
+    void setUp() {
+        linkMonthlyStatsRepository.deleteAll();
+        clickEventRepository.deleteAll();
+        linkRepository.deleteAll();
+        manager = new ClickPartitionManager(dataSource, transactionManager, 3, 12, archiveDir);
+
+        link = linkRepository.save(new Link("part001", "https://fiverr.com/partitioned"));
+        clickEventRepository.save(new ClickEvent(link, OLD_MONTH.atTime(10, 0), true, 5_000_000));
+        clickEventRepository.save(new ClickEvent(link, OLD_MONTH.atTime(11, 0), false, 0));
+        clickEventRepository.save(new ClickEvent(link, RECENT_MONTH.atTime(9, 0), true, 5_000_000));
+    }
+
+    @Test
+    void applyRetention_shouldArchiveAndRemoveMonthsCapturedInRollup() throws IOException {
+        statsRollupService.rebuild();
+
+        List<LocalDate> archived = manager.applyRetention(LocalDate.of(2026, 1, 1));
+
+        assertEquals(List.of(OLD_MONTH), archived);
+        assertEquals(1, clickEventRepository.count());
+        List<String> lines = readArchive(archiveDir.resolve("click_events_2025-01.csv.gz"));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains(",2025-01-01T10:00,true,5000000"), lines.get(1));
+
+        // The rollup still reports the archived month, and a rebuild doesn't drop it.
+        statsRollupService.rebuild();
+        List<LinkMonthlyStats> rollup = linkMonthlyStatsRepository.findAll();
+        assertEquals(2, rollup.size());
+        assertEquals(3, rollup.stream().mapToLong(LinkMonthlyStats::getClickCount).sum());
+    }
+
+    @Test
+    void applyRetention_shouldKeepMonthsTheRollupDoesNotCover() {
+        linkMonthlyStatsRepository.save(new LinkMonthlyStats(link.getId(), OLD_MONTH, 1, 1, 5_000_000));
+
+        List<LocalDate> archived = manager.applyRetention(LocalDate.of(2026, 1, 1));
+
+        assertTrue(archived.isEmpty());
+        assertEquals(3, clickEventRepository.count());
+        assertFalse(Files.exists(archiveDir.resolve("click_events_2025-01.csv.gz")));
+    }
+
+    @Test
+    void createUpcomingPartitions_shouldBeNoOpWithoutPartitionedTable() {
+        assertTrue(manager.createUpcomingPartitions(LocalDate.now().withDayOfMonth(1)).isEmpty());
+    }
+
+    private static List<String> readArchive(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
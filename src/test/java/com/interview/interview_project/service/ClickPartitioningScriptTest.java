@@ -0,0 +1,129 @@
+package com.interview.interview_project.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migration scripts in src/main/resources/db against a live click_events table on a
+ * real Postgres, which H2 can't stand in for. Enabled with
+ * {@code -Dtest.postgres.url=jdbc:postgresql://...}; works in its own schema and drops it after.
+ */
+@EnabledIfSystemProperty(named = "test.postgres.url", matches = ".+")
+class ClickPartitioningScriptTest {
+
+    private static final String SCHEMA = "click_partitioning_test";
+
+    @TempDir
+    private Path archiveDir;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private LocalDate thisMonth;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate admin = new JdbcTemplate(dataSource(new Properties()));
+        admin.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        admin.execute("CREATE SCHEMA " + SCHEMA);
+        Properties properties = new Properties();
+        properties.setProperty("currentSchema", SCHEMA);
+        dataSource = dataSource(properties);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        thisMonth = jdbcTemplate.queryForObject("SELECT date_trunc('month', now())::date", LocalDate.class);
+
+        // click_events as Hibernate creates it, with clicks from last month and this one.
+        jdbcTemplate.execute("CREATE TABLE links (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE click_events (id BIGINT PRIMARY KEY,"
+                + " link_id BIGINT NOT NULL REFERENCES links (id), clicked_at TIMESTAMP(6) NOT NULL,"
+                + " fraud_valid BOOLEAN, credit_micros BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE INDEX idx_click_link_id ON click_events (link_id)");
+        jdbcTemplate.execute("CREATE INDEX idx_click_clicked_at ON click_events (clicked_at)");
+        jdbcTemplate.update("INSERT INTO links (id) VALUES (1)");
+        jdbcTemplate.update("INSERT INTO click_events (id, link_id, clicked_at, fraud_valid, credit_micros) VALUES"
+                + " (1, 1, date_trunc('month', now()) - interval '10 days', true, 5000000),"
+                + " (2, 1, date_trunc('month', now()) + interval '1 hour', true, 5000000),"
+                + " (3, 1, date_trunc('month', now()) + interval '2 hours', false, 0)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void partitioningScript_shouldMoveCurrentMonthClicksOutOfTheLegacyPartition() throws IOException {
+        runScript("db/click-events-partitioning.sql");
+
+        assertEquals(3, count("click_events"));
+        assertEquals(1, count("click_events_legacy"));
+        assertEquals(2, count(ClickPartitionManager.partitionName(thisMonth)));
+
+        // Maintenance picks up the partitions the script created and keeps going from there.
+        ClickPartitionManager manager = new ClickPartitionManager(
+                dataSource, new DataSourceTransactionManager(dataSource), 3, 12, archiveDir);
+        assertEquals(4, manager.createUpcomingPartitions(thisMonth).size());
+        jdbcTemplate.update("INSERT INTO click_events (id, link_id, clicked_at, fraud_valid, credit_micros)"
+                + " VALUES (4, 1, date_trunc('month', now()) + interval '3 hours', true, 5000000)");
+        assertEquals(3, count(ClickPartitionManager.partitionName(thisMonth)));
+        assertEquals(0, count("click_events_default"));
+    }
+
+    @Test
+    void partitioningScript_shouldKeepJournalColumnsAddedBeforeIt() throws IOException {
+        runScript("db/click-events-journal.sql");
+        jdbcTemplate.update("UPDATE click_events SET journal_id = 7, journal_offset = id");
+
+        runScript("db/click-events-partitioning.sql");
+        runScript("db/click-events-journal.sql");
+
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM click_events WHERE journal_id = 7 AND journal_offset = id", Long.class));
+        String duplicate = "INSERT INTO click_events (id, link_id, clicked_at, fraud_valid, credit_micros,"
+                + " journal_id, journal_offset) SELECT 10 + id, link_id, clicked_at, fraud_valid, credit_micros,"
+                + " journal_id, journal_offset FROM click_events WHERE id = ";
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(duplicate + 1));
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(duplicate + 2));
+    }
+
+    @Test
+    void journalScript_shouldRunAfterPartitioning() throws IOException {
+        runScript("db/click-events-partitioning.sql");
+        runScript("db/click-events-journal.sql");
+
+        jdbcTemplate.update("UPDATE click_events SET journal_id = 7, journal_offset = id");
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM click_events WHERE journal_id = 7", Long.class));
+    }
+
+    private void runScript(String path) throws IOException {
+        jdbcTemplate.execute(new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static DriverManagerDataSource dataSource(Properties properties) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty("test.postgres.url"),
+                System.getProperty("test.postgres.username", "postgres"),
+                System.getProperty("test.postgres.password", "postgres"));
+        dataSource.setConnectionProperties(properties);
+        return dataSource;
+    }
+}
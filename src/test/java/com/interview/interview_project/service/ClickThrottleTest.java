@@ -0,0 +1,89 @@
+package com.interview.interview_project.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickThrottleTest {
+
+    private static final long HOT = 1L;
+    private static final long COLD = 2L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long now = TimeUnit.SECONDS.toNanos(100);
+
+    @Test
+    void admit_shouldCollapseRepeatClicksFromTheSameClient() {
+        ClickThrottle throttle = newThrottle(Duration.ofSeconds(10), 0, 0.0);
+
+        assertTrue(throttle.admit(click(HOT, "10.0.0.1")));
+        assertFalse(throttle.admit(click(HOT, "10.0.0.1")));
+        assertTrue(throttle.admit(click(HOT, "10.0.0.2")));
+        assertTrue(throttle.admit(click(COLD, "10.0.0.1")));
+        assertTrue(throttle.admit(ClickContext.of(HOT, "10.0.0.1", "curl/8.0", 0L)),
+                "Another user agent behind the same address is a different client");
+
+        assertEquals(1.0, suppressed("duplicate"));
+    }
+
+    @Test
+    void admit_shouldShedClicksOverTheLinkLimitWithoutAffectingOtherLinks() {
+        ClickThrottle throttle = newThrottle(Duration.ZERO, 100, 0.0);
+
+        int admitted = 0;
+        for (int i = 0; i < 150; i++) {
+            if (throttle.admit(click(HOT, "client-" + i))) {
+                admitted++;
+            }
+        }
+
+        assertEquals(100, admitted);
+        assertEquals(50.0, suppressed("shed"));
+        assertTrue(throttle.admit(click(COLD, "client-0")));
+        assertEquals(150, throttle.estimate(HOT));
+        assertEquals(150L, throttle.hotLinks().get(HOT));
+        assertFalse(throttle.hotLinks().containsKey(COLD));
+    }
+
+    @Test
+    void admit_shouldSampleExcessClicks() {
+        ClickThrottle throttle = newThrottle(Duration.ZERO, 10, 1.0);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(throttle.admit(click(HOT, "client-" + i)));
+        }
+        assertEquals(10.0, meterRegistry.get("shortlinks.throttle.sampled").counter().count());
+    }
+
+    @Test
+    void estimate_shouldDecayOverTheSlidingWindow() {
+        ClickThrottle throttle = newThrottle(Duration.ZERO, 0, 0.0);
+        for (int i = 0; i < 100; i++) {
+            throttle.admit(click(HOT, "client-" + i));
+        }
+
+        now += TimeUnit.MILLISECONDS.toNanos(1250);
+        assertEquals(75, throttle.estimate(HOT));
+        assertTrue(throttle.hotLinks().isEmpty());
+
+        now += TimeUnit.SECONDS.toNanos(2);
+        assertEquals(0, throttle.estimate(HOT));
+    }
+
+    private static ClickContext click(long linkId, String client) {
+        return ClickContext.of(linkId, client, "Mozilla/5.0", 0L);
+    }
+
+    private ClickThrottle newThrottle(Duration dedupeWindow, long linkMaxClicks, double excessSampleRate) {
+        return new ClickThrottle(dedupeWindow, 1000, Duration.ofSeconds(1), 1024, 50, linkMaxClicks,
+                excessSampleRate, meterRegistry, () -> now);
+    }
+
+    private double suppressed(String reason) {
+        return meterRegistry.get("shortlinks.throttle.suppressed").tag("reason", reason).counter().count();
+    }
+}
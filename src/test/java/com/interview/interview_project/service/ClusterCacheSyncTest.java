@@ -0,0 +1,133 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.LinkTotalsRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterCacheSyncTest {
+
+    private static final Long HOT = 1L;
+    private static final CachedLink LINK = new CachedLink(7L, "abc1234", "https://fiverr.com/gig", "https://fiverr.com/gig");
+
+    @Mock
+    private LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+
+    private InProcessClusterEventBus nodeA;
+    private ShortCodeCache cacheB;
+    private LinkCounterStore countersB;
+
+    @BeforeEach
+    void setUp() {
+        when(linkMonthlyStatsRepository.findMostClickedTotals(any()))
+                .thenReturn(List.of(new LinkTotalsRow(HOT, 10L, 50_000_000L, 4L)));
+        nodeA = new InProcessClusterEventBus();
+        InProcessClusterEventBus nodeB = new InProcessClusterEventBus().join(nodeA);
+        cacheB = new ShortCodeCache(1024 * 1024, 100, Duration.ofSeconds(30), new SimpleMeterRegistry());
+        countersB = new LinkCounterStore(linkMonthlyStatsRepository, 100, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        countersB.start();
+        new ClusterCacheSync(nodeB, cacheB, countersB);
+    }
+
+    @Test
+    void linkCreatedOnAnotherNode_shouldClearNegativeCacheEntry() {
+        assertTrue(cacheB.get(LINK.shortCode(), code -> Optional.empty()).isEmpty());
+
+        nodeA.publish(new ClusterEvent.LinkChanged(ClusterEvent.LinkChanged.Type.CREATED, LINK.shortCode()));
+
+        assertEquals(Optional.of(LINK), cacheB.get(LINK.shortCode(), code -> Optional.of(LINK)));
+    }
+
+    @Test
+    void clicksPersistedOnAnotherNode_shouldReachHotTotalsAfterCommit() {
+        List<ClickRecord> batch = List.of(click(HOT), click(HOT), click(2L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ClusterEvent.ClicksPersisted.of(batch, Map.of(HOT, 5L, 2L, 1L)).forEach(nodeA::publish);
+            assertEquals(10, countersB.hotTotals(HOT).orElseThrow().clicks(), "Delivered before commit");
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        LinkCounterStore.Totals totals = countersB.hotTotals(HOT).orElseThrow();
+        assertEquals(12, totals.clicks());
+        assertEquals(60_000_000L, totals.creditMicros());
+        assertTrue(countersB.hotTotals(2L).isEmpty());
+    }
+
+    @Test
+    void clicksPersistedOnAnotherNode_shouldBeSkippedWhenAlreadyInTheLoadedTotals() {
+        // Committed before node B read the rollup at version 4, delivered after.
+        nodeA.publish(ClusterEvent.ClicksPersisted.of(List.of(click(HOT)), Map.of(HOT, 4L)).getFirst());
+        assertEquals(10, countersB.hotTotals(HOT).orElseThrow().clicks());
+
+        nodeA.publish(ClusterEvent.ClicksPersisted.of(List.of(click(HOT)), Map.of(HOT, 5L)).getFirst());
+        assertEquals(11, countersB.hotTotals(HOT).orElseThrow().clicks());
+    }
+
+    @Test
+    void publish_shouldNotDeliverToThePublishingNode() {
+        List<ClusterEvent> received = new ArrayList<>();
+        nodeA.subscribe(received::add);
+
+        nodeA.publish(new ClusterEvent.LinkChanged(ClusterEvent.LinkChanged.Type.INVALIDATED, "abc1234"));
+
+        assertTrue(received.isEmpty());
+        assertFalse(new InProcessClusterEventBus().isClustered());
+    }
+
+    @Test
+    void onGap_shouldReloadHotTotalsFromTheRollup() {
+        when(linkMonthlyStatsRepository.findTotalsByLinkIds(List.of(HOT)))
+                .thenReturn(List.of(new LinkTotalsRow(HOT, 25L, 125_000_000L, 9L)));
+
+        new ClusterCacheSync(new InProcessClusterEventBus(), cacheB, countersB).onGap();
+
+        assertEquals(25, countersB.hotTotals(HOT).orElseThrow().clicks());
+        nodeA.publish(ClusterEvent.ClicksPersisted.of(List.of(click(HOT)), Map.of(HOT, 9L)).getFirst());
+        assertEquals(25, countersB.hotTotals(HOT).orElseThrow().clicks(), "Already in the reloaded totals");
+    }
+
+    @Test
+    void clicksPersisted_shouldSplitLargeBatchesAndRoundTripThroughPayloads() {
+        List<ClickRecord> batch = LongStream.range(0, 250).mapToObj(ClusterCacheSyncTest::click).toList();
+
+        List<ClusterEvent.ClicksPersisted> events = ClusterEvent.ClicksPersisted.of(batch,
+                Map.of(0L, Long.MAX_VALUE));
+
+        assertEquals(3, events.size());
+        for (ClusterEvent.ClicksPersisted event : events) {
+            String payload = event.encode();
+            assertTrue(payload.length() < 8000, "Payload too large for NOTIFY: " + payload.length());
+            assertEquals(event, ClusterEvent.decode(payload));
+        }
+        ClusterEvent.LinkChanged changed = new ClusterEvent.LinkChanged(ClusterEvent.LinkChanged.Type.CREATED, "abc1234");
+        assertEquals(changed, ClusterEvent.decode(changed.encode()));
+        assertThrows(IllegalArgumentException.class, () -> ClusterEvent.decode("X:abc"));
+    }
+
+    private static ClickRecord click(long linkId) {
+        return new ClickRecord(linkId, LocalDateTime.now(), true, 5_000_000);
+    }
+}
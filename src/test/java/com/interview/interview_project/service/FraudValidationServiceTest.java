@@ -1,12 +1,35 @@
 package com.interview.interview_project.service;
 
+import com.interview.interview_project.config.BoundedClickExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class FraudValidationServiceTest {
 
-    private final FraudValidationService service = new FraudValidationService();
+    private final ExecutorService backendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<FraudValidationService> services = new ArrayList<>();
+    private final FraudValidationService service = track(new FraudValidationService(backendExecutor,
+            Duration.ofMillis(10), 100, Duration.ofSeconds(2), false, Duration.ofMinutes(10), 100_000,
+            new SimpleMeterRegistry()));
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(FraudValidationService::stop);
+        backendExecutor.shutdownNow();
+    }
 
     @Test
     void validate_shouldReturnBoolean() {
@@ -28,13 +51,14 @@ class FraudValidationServiceTest {
         // Over 100 calls, we should see both true and false (statistically near-certain)
         int trueCount = 0;
         int falseCount = 0;
-        FraudValidationService fastService = new FraudValidationService() {
+        FraudValidationService fastService = track(new FraudValidationService(backendExecutor, Duration.ofMillis(10),
+                100, Duration.ofSeconds(2), false, Duration.ZERO, 0, new SimpleMeterRegistry()) {
             @Override
             public boolean validate() {
                 // Skip the sleep for speed, just test the randomness
                 return new java.security.SecureRandom().nextBoolean();
             }
-        };
+        });
 
         for (int i = 0; i < 100; i++) {
             if (fastService.validate()) {
@@ -46,4 +70,133 @@ class FraudValidationServiceTest {
         assertTrue(trueCount > 0, "Expected at least one true result");
         assertTrue(falseCount > 0, "Expected at least one false result");
     }
+
+    @Test
+    void validateAsync_shouldCoalesceClicksIntoOneBackendCall() throws Exception {
+        AtomicInteger backendCalls = new AtomicInteger();
+        FraudValidationService batching = track(new FraudValidationService(backendExecutor,
+                Duration.ofMillis(50), 100, Duration.ofSeconds(5), false, Duration.ZERO, 0, new SimpleMeterRegistry()) {
+            @Override
+            protected List<Boolean> checkBatch(int size) {
+                backendCalls.incrementAndGet();
+                return super.checkBatch(size);
+            }
+        });
+
+        List<CompletableFuture<Boolean>> verdicts = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++) {
+            verdicts.add(batching.validateAsync());
+        }
+        CompletableFuture.allOf(verdicts.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(1, backendCalls.get(), "A full batch should be one backend call");
+        assertTrue(elapsed < 1500, "100 clicks should cost one 500ms check, took " + elapsed + "ms");
+    }
+
+    @Test
+    void validateAsync_shouldFallBackWhenBackendTimesOut() throws Exception {
+        FraudValidationService slow = track(new FraudValidationService(backendExecutor,
+                Duration.ofMillis(5), 100, Duration.ofMillis(100), true, Duration.ZERO, 0,
+                new SimpleMeterRegistry()) {
+            @Override
+            protected List<Boolean> checkBatch(int size) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of(false);
+            }
+        });
+
+        assertTrue(slow.validateAsync().get(1, TimeUnit.SECONDS), "Timed-out click should get the fallback verdict");
+    }
+
+    @Test
+    void validateAsync_shouldRunTimedOutContinuationsOffTheSharedDelayThread() throws Exception {
+        FraudValidationService slow = track(new FraudValidationService(backendExecutor,
+                Duration.ofMillis(5), 100, Duration.ofMillis(100), true, Duration.ZERO, 0,
+                new SimpleMeterRegistry()) {
+            @Override
+            protected List<Boolean> checkBatch(int size) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of(false);
+            }
+        });
+
+        CompletableFuture<String> continuation = slow.validateAsync().thenApply(verdict -> Thread.currentThread().getName());
+
+        assertFalse(continuation.get(1, TimeUnit.SECONDS).startsWith("CompletableFutureDelayScheduler"),
+                "A blocking continuation would hold up every other click's timeout");
+    }
+
+    @Test
+    void validateAsync_shouldFallBackAtOnceWhenExecutorDropsTheCheck() throws Exception {
+        BoundedClickExecutor full = new BoundedClickExecutor(Executors.newVirtualThreadPerTaskExecutor(), 1, 0,
+                BoundedClickExecutor.RejectionPolicy.DROP, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        full.start();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FraudValidationService dropped = track(new FraudValidationService(full, Duration.ofMillis(5), 100,
+                Duration.ofSeconds(30), true, Duration.ZERO, 0, meterRegistry));
+
+        assertTrue(dropped.validateAsync().get(1, TimeUnit.SECONDS), "Dropped check should get the fallback verdict");
+        assertEquals(1.0, meterRegistry.get("shortlinks.fraud.fallback").counter().count());
+        full.stop();
+    }
+
+    @Test
+    void validateAsync_shouldReuseVerdictForRepeatClicksFromTheSameClient() throws Exception {
+        AtomicInteger backendCalls = new AtomicInteger();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FraudValidationService caching = track(new FraudValidationService(backendExecutor,
+                Duration.ofMillis(5), 100, Duration.ofSeconds(5), false, Duration.ofMinutes(1), 100, meterRegistry) {
+            @Override
+            protected List<Boolean> checkBatch(int size) {
+                backendCalls.incrementAndGet();
+                return Collections.nCopies(size, true);
+            }
+        });
+        ClickContext click = ClickContext.of(1L, "10.0.0.1", "Mozilla/5.0", 1000L);
+
+        assertTrue(caching.validateAsync(click).get(1, TimeUnit.SECONDS));
+        assertTrue(caching.validateAsync(ClickContext.of(1L, "10.0.0.1", "Mozilla/5.0", 2000L))
+                .get(1, TimeUnit.SECONDS));
+        assertEquals(1, backendCalls.get(), "A repeat click should reuse the cached verdict");
+
+        caching.validateAsync(ClickContext.of(1L, "10.0.0.1", "curl/8.0", 3000L)).get(1, TimeUnit.SECONDS);
+        caching.validateAsync(ClickContext.of(2L, "10.0.0.1", "Mozilla/5.0", 4000L)).get(1, TimeUnit.SECONDS);
+        assertEquals(3, backendCalls.get(), "Another user agent or link is a different fingerprint");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "shortlinks.fraud.verdicts")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void validateAsync_shouldNotCacheFallbackVerdicts() throws Exception {
+        AtomicInteger backendCalls = new AtomicInteger();
+        FraudValidationService failing = track(new FraudValidationService(backendExecutor,
+                Duration.ofMillis(5), 100, Duration.ofSeconds(5), true, Duration.ofMinutes(1), 100,
+                new SimpleMeterRegistry()) {
+            @Override
+            protected List<Boolean> checkBatch(int size) {
+                backendCalls.incrementAndGet();
+                throw new IllegalStateException("backend down");
+            }
+        });
+        ClickContext click = ClickContext.of(1L, "10.0.0.1", "Mozilla/5.0", 1000L);
+
+        assertTrue(failing.validateAsync(click).get(1, TimeUnit.SECONDS));
+        assertTrue(failing.validateAsync(click).get(1, TimeUnit.SECONDS));
+        assertEquals(2, backendCalls.get());
+    }
+
+    private FraudValidationService track(FraudValidationService fraudValidationService) {
+        services.add(fraudValidationService);
+        return fraudValidationService;
+    }
 }
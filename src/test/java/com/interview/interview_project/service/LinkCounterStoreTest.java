@@ -0,0 +1,190 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.model.Credits;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.LinkTotalsRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LinkCounterStoreTest {
+
+    private static final Long HOT = 1L;
+    private static final Long COLD = 2L;
+    private static final long CREDIT_MICROS = 5_000_000;
+
+    @Mock
+    private LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+
+    private LinkCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(linkMonthlyStatsRepository.findMostClickedTotals(any()))
+                .thenReturn(List.of(new LinkTotalsRow(HOT, 10L, Credits.fromDollars(new BigDecimal("0.25")), 3L)));
+        store = new LinkCounterStore(linkMonthlyStatsRepository, 100, Duration.ofSeconds(5), Duration.ofSeconds(1));
+        store.start();
+    }
+
+    @Test
+    void hotTotals_shouldIncludePersistedAndPendingClicks() {
+        store.accepted(click(HOT, true));
+        store.accepted(click(HOT, false));
+
+        LinkCounterStore.Totals totals = store.hotTotals(HOT).orElseThrow();
+        assertEquals(12, totals.clicks());
+        assertEquals(new BigDecimal("0.30"), Credits.toDollars(totals.creditMicros()));
+
+        store.persisted(List.of(click(HOT, true), click(HOT, false)), Map.of());
+
+        assertEquals(12, store.hotTotals(HOT).orElseThrow().clicks());
+        assertEquals(0, store.pending(HOT).clicks());
+    }
+
+    @Test
+    void pending_shouldTrackColdLinksUntilPersistedOrDiscarded() {
+        assertTrue(store.hotTotals(COLD).isEmpty());
+
+        store.accepted(click(COLD, true));
+        store.accepted(click(COLD, true));
+        store.accepted(click(COLD, false));
+        assertEquals(3, store.pending(COLD).clicks());
+        assertEquals(2 * CREDIT_MICROS, store.pending(COLD).creditMicros());
+
+        store.persisted(List.of(click(COLD, true), click(COLD, false)), Map.of(COLD, 1L));
+        store.discarded(List.of(click(COLD, true)));
+
+        assertEquals(LinkCounterStore.Totals.ZERO, store.pending(COLD));
+    }
+
+    @Test
+    void hotTotals_shouldBeExactUnderConcurrentClicks() {
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            ClickRecord click = click(HOT, i % 2 == 0);
+            store.accepted(click);
+            store.persisted(List.of(click), Map.of());
+        });
+
+        LinkCounterStore.Totals totals = store.hotTotals(HOT).orElseThrow();
+        assertEquals(10_010, totals.clicks());
+        assertEquals(new BigDecimal("250.25"), Credits.toDollars(totals.creditMicros()));
+        assertEquals(0, store.pending(HOT).clicks());
+    }
+
+    @Test
+    void refreshHotLinks_shouldAdmitBusyLinksAndEvictColdOnes() {
+        when(linkMonthlyStatsRepository.findTotalsByLinkIds(List.of(COLD)))
+                .thenReturn(List.of(new LinkTotalsRow(COLD, 7L, 7 * CREDIT_MICROS, 2L)));
+        store.accepted(click(COLD, true));
+        store.accepted(click(COLD, true));
+
+        store.refreshHotLinks();
+
+        assertEquals(9, store.hotTotals(COLD).orElseThrow().clicks());
+        assertTrue(store.hotTotals(HOT).isEmpty(), "a hot link without clicks in the interval retires");
+
+        store.persisted(List.of(click(COLD, true), click(COLD, true)), Map.of());
+        store.accepted(click(COLD, false));
+        store.refreshHotLinks();
+
+        assertEquals(1, store.hotLinkCount());
+        assertEquals(10, store.hotTotals(COLD).orElseThrow().clicks());
+        assertEquals(1, store.pending(COLD).clicks());
+    }
+
+    @Test
+    void refreshHotLinks_shouldKeepPendingClicksOfEvictedLinks() {
+        store.accepted(click(HOT, true));
+        store.refreshHotLinks();
+        assertTrue(store.hotTotals(HOT).isPresent());
+
+        store.refreshHotLinks();
+        store.refreshHotLinks();
+
+        assertEquals(0, store.hotLinkCount());
+        assertEquals(1, store.pending(HOT).clicks());
+        store.persisted(List.of(click(HOT, true)), Map.of());
+        assertEquals(LinkCounterStore.Totals.ZERO, store.pending(HOT));
+    }
+
+    @Test
+    void refreshHotLinks_shouldWaitForTheBatchBeingWritten() throws Exception {
+        ClickRecord click = click(COLD, true);
+        store.accepted(click);
+        store.beginBatch();
+
+        CompletableFuture<Void> refresh = CompletableFuture.runAsync(store::refreshHotLinks);
+        assertThrows(TimeoutException.class, () -> refresh.get(200, TimeUnit.MILLISECONDS));
+        verify(linkMonthlyStatsRepository, never()).findTotalsByLinkIds(any());
+
+        // The batch commits, so the rollup the admitted counter starts from includes it.
+        when(linkMonthlyStatsRepository.findTotalsByLinkIds(List.of(COLD)))
+                .thenReturn(List.of(new LinkTotalsRow(COLD, 8L, 8 * CREDIT_MICROS, 3L)));
+        store.persisted(List.of(click), Map.of());
+        store.endBatch();
+        refresh.get(5, TimeUnit.SECONDS);
+
+        assertEquals(8, store.hotTotals(COLD).orElseThrow().clicks());
+    }
+
+    @Test
+    void rebuildingRollup_shouldWaitForTheBatchBeingWrittenAndReloadHotTotals() throws Exception {
+        store.beginBatch();
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> store.rebuildingRollup(() ->
+                when(linkMonthlyStatsRepository.findTotalsByLinkIds(List.of(HOT)))
+                        .thenReturn(List.of(new LinkTotalsRow(HOT, 4L, 4 * CREDIT_MICROS, 9L)))));
+        assertThrows(TimeoutException.class, () -> rebuild.get(200, TimeUnit.MILLISECONDS));
+        verify(linkMonthlyStatsRepository, never()).findTotalsByLinkIds(any());
+
+        store.endBatch();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, store.hotTotals(HOT).orElseThrow().clicks());
+        assertEquals(4 * CREDIT_MICROS, store.hotTotals(HOT).orElseThrow().creditMicros());
+    }
+
+    @Test
+    void pending_shouldKeepCommittedClicksForRollupTotalsReadAtAnOlderVersion() {
+        store.accepted(click(COLD, true));
+        store.accepted(click(COLD, true));
+        store.persisted(List.of(click(COLD, true)), Map.of(COLD, 4L));
+
+        assertEquals(1, store.pending(COLD).clicks());
+        // A replica still at version 3 hasn't replayed the commit.
+        assertEquals(2, store.pending(COLD, 3).clicks());
+        assertEquals(2 * CREDIT_MICROS, store.pending(COLD, 3).creditMicros());
+        assertEquals(1, store.pending(COLD, 4).clicks());
+    }
+
+    @Test
+    void expireCommitted_shouldForgetClicksOlderThanTheReplicaMayLag() {
+        LinkCounterStore store = new LinkCounterStore(linkMonthlyStatsRepository, 0, Duration.ZERO, Duration.ZERO);
+        store.accepted(click(COLD, true));
+        store.persisted(List.of(click(COLD, true)), Map.of(COLD, 4L));
+
+        store.expireCommitted();
+
+        assertEquals(LinkCounterStore.Totals.ZERO, store.pending(COLD, 3));
+    }
+
+    private static ClickRecord click(Long linkId, boolean valid) {
+        return new ClickRecord(linkId, LocalDateTime.now(), valid, valid ? CREDIT_MICROS : 0);
+    }
+}
@@ -0,0 +1,137 @@
+package com.interview.interview_project.service;
+
+import com.interview.interview_project.dto.LinkStatsResponse;
+import com.interview.interview_project.dto.MonthlyBreakdown;
+import com.interview.interview_project.model.Link;
+import com.interview.interview_project.model.LinkMonthlyStats;
+import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
+import com.interview.interview_project.repository.LinkRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LinkServiceStatsQueryTest {
+
+    @Autowired
+    private LinkService linkService;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private ClickEventRepository clickEventRepository;
+
+    @Autowired
+    private LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StatsRollupService statsRollupService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LinkCounterStore linkCounterStore;
+
+    @BeforeEach
+    void setUp() {
+        linkMonthlyStatsRepository.deleteAll();
+        clickEventRepository.deleteAll();
+        linkRepository.deleteAll();
+
+        for (int i = 0; i < 60; i++) {
+            Link link = linkRepository.save(new Link("q" + i, "https://fiverr.com/query-count/" + i));
+            linkMonthlyStatsRepository.save(new LinkMonthlyStats(link.getId(), LocalDate.of(2026, 1, 1),
+                    3, 1, 5_000_000));
+            linkMonthlyStatsRepository.save(new LinkMonthlyStats(link.getId(), LocalDate.of(2026, 2, 1),
+                    2, 2, 10_000_000));
+        }
+    }
+
+    @Test
+    void getStats_statementCountShouldNotDependOnPageSize() {
+        long smallPage = statementsFor(5);
+        long largePage = statementsFor(50);
+
+        assertEquals(smallPage, largePage, "Statements per page should be constant");
+        assertTrue(largePage <= 3, "Expected page query, count query and one rollup query, got " + largePage);
+    }
+
+    @Test
+    void getStats_shouldAggregateTotalsFromMonthlyRows() {
+        Page<LinkStatsResponse> page = linkService.getStats(PageRequest.of(0, 10));
+
+        LinkStatsResponse first = page.getContent().get(0);
+        assertEquals(5, first.getTotalClicks());
+        assertEquals(new BigDecimal("0.15"), first.getTotalEarnings());
+        assertEquals(2, first.getMonthlyBreakdown().size());
+        assertEquals("01/2026", first.getMonthlyBreakdown().get(0).getMonth());
+    }
+
+    @Test
+    void getStats_shouldOnlyRereadRollupForLinksWhoseStatsChanged() {
+        linkService.getStats(PageRequest.of(0, 10));
+        assertEquals(2, statementsFor(10), "Unchanged page should cost the page and count queries only");
+
+        Link clicked = linkRepository.findByShortCode("q0").orElseThrow();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> statsRollupService.apply(
+                List.of(new ClickRecord(clicked.getId(), LocalDateTime.of(2026, 2, 10, 12, 0), true, 5_000_000))));
+
+        assertEquals(3, statementsFor(10), "Changed link should be re-read from the rollup");
+        LinkStatsResponse refreshed = linkService.getStats(PageRequest.of(0, 10)).getContent().stream()
+                .filter(stats -> stats.getUrl().equals(clicked.getTargetUrl()))
+                .findFirst().orElseThrow();
+        assertEquals(6, refreshed.getTotalClicks());
+        assertEquals(new BigDecimal("0.20"), refreshed.getTotalEarnings());
+        assertEquals(2, statementsFor(10));
+    }
+
+    @Test
+    void getStats_shouldAddUnwrittenClicksToTheCurrentMonth() {
+        Link clicked = linkRepository.findByShortCode("q0").orElseThrow();
+        ClickRecord click = new ClickRecord(clicked.getId(), LocalDateTime.now(), true, 5_000_000);
+        linkCounterStore.accepted(click);
+        try {
+            LinkStatsResponse stats = linkService.getStats(PageRequest.of(0, 10)).getContent().stream()
+                    .filter(s -> s.getUrl().equals(clicked.getTargetUrl()))
+                    .findFirst().orElseThrow();
+
+            assertEquals(new BigDecimal("0.20"), stats.getTotalEarnings());
+            assertEquals(3, stats.getMonthlyBreakdown().size());
+            MonthlyBreakdown current = stats.getMonthlyBreakdown().get(2);
+            assertEquals(YearMonth.now().format(DateTimeFormatter.ofPattern("MM/yyyy")), current.getMonth());
+            assertEquals(new BigDecimal("0.05"), current.getEarnings());
+        } finally {
+            linkCounterStore.discarded(List.of(click));
+        }
+    }
+
+    private long statementsFor(int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        linkService.getStats(PageRequest.of(0, pageSize));
+        return statistics.getPrepareStatementCount();
+    }
+}
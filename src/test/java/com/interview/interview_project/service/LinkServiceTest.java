@@ -2,14 +2,26 @@ package com.interview.interview_project.service;
 
 import com.interview.interview_project.exception.LinkNotFoundException;
 import com.interview.interview_project.model.Link;
-import com.interview.interview_project.repository.ClickEventRepository;
+import com.interview.interview_project.model.TargetUrlHash;
+import com.interview.interview_project.repository.LinkMonthlyStatsRepository;
 import com.interview.interview_project.repository.LinkRepository;
+import com.interview.interview_project.repository.LinkTargetRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,19 +35,31 @@ class LinkServiceTest {
     private LinkRepository linkRepository;
 
     @Mock
-    private ClickEventRepository clickEventRepository;
+    private LinkMonthlyStatsRepository linkMonthlyStatsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     private LinkService linkService;
 
     @BeforeEach
     void setUp() {
-        linkService = new LinkService(linkRepository, clickEventRepository);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        linkService = newLinkService(new RandomShortCodeGenerator());
+    }
+
+    private LinkService newLinkService(ShortCodeGenerator shortCodeGenerator) {
+        ShortCodeCache shortCodeCache = new ShortCodeCache(1024 * 1024, 100, Duration.ofSeconds(30),
+                new SimpleMeterRegistry());
+        return new LinkService(linkRepository, linkMonthlyStatsRepository, shortCodeCache,
+                shortCodeGenerator, new LinkCounterStore(linkMonthlyStatsRepository, 0, Duration.ofSeconds(5), Duration.ofSeconds(1)),
+                new InProcessClusterEventBus(), new StatsSnapshotCache(1000, new SimpleMeterRegistry()), transactionManager);
     }
 
     @Test
     void createShortLink_shouldCreateNewLink() {
         String targetUrl = "https://fiverr.com/seller/gig";
-        when(linkRepository.findByTargetUrl(targetUrl)).thenReturn(Optional.empty());
+        when(linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))).thenReturn(Optional.empty());
         when(linkRepository.findByShortCode(any())).thenReturn(Optional.empty());
         when(linkRepository.save(any(Link.class))).thenAnswer(invocation -> {
             Link link = invocation.getArgument(0);
@@ -52,12 +76,36 @@ class LinkServiceTest {
         verify(linkRepository).save(any(Link.class));
     }
 
+    @Test
+    void createShortLink_shouldDropCachedMissOnlyAfterCommit() {
+        String targetUrl = "https://fiverr.com/seller/gig";
+        when(linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))).thenReturn(Optional.empty());
+        when(linkRepository.findByShortCode(any())).thenReturn(Optional.empty());
+        when(linkRepository.save(any(Link.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(linkRepository.findTargetByShortCode(any())).thenReturn(Optional.empty());
+
+        Link created;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            created = linkService.createShortLink(targetUrl);
+            // A redirect racing the insert doesn't see the row yet and caches the miss.
+            assertThrows(LinkNotFoundException.class, () -> linkService.resolve(created.getShortCode()));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        when(linkRepository.findTargetByShortCode(created.getShortCode()))
+                .thenReturn(Optional.of(new LinkTargetRow(1L, created.getShortCode(), targetUrl)));
+        assertEquals(targetUrl, linkService.resolve(created.getShortCode()).targetUrl());
+    }
+
     @Test
     void createShortLink_shouldReturnExistingForSameUrl() {
         String targetUrl = "https://fiverr.com/seller/gig";
         Link existing = new Link("abc1234", targetUrl);
         existing.setId(1L);
-        when(linkRepository.findByTargetUrl(targetUrl)).thenReturn(Optional.of(existing));
+        when(linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))).thenReturn(Optional.of(existing));
 
         Link result = linkService.createShortLink(targetUrl);
 
@@ -65,6 +113,49 @@ class LinkServiceTest {
         verify(linkRepository, never()).save(any(Link.class));
     }
 
+    @Test
+    void createShortLink_shouldNotReturnLinkWhoseUrlOnlySharesTheHash() {
+        String targetUrl = "https://fiverr.com/seller/gig";
+        Link colliding = new Link("abc1234", "https://fiverr.com/other");
+        colliding.setTargetUrlHash(TargetUrlHash.of(targetUrl));
+        when(linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))).thenReturn(Optional.of(colliding));
+        when(linkRepository.findByShortCode(any())).thenReturn(Optional.empty());
+        when(linkRepository.save(any(Link.class))).thenAnswer(i -> i.getArgument(0));
+
+        Link result = linkService.createShortLink(targetUrl);
+
+        assertEquals(targetUrl, result.getTargetUrl());
+        assertNotEquals("abc1234", result.getShortCode());
+    }
+
+    @Test
+    void createShortLink_shouldRetryWithTheNextCodeWhenASequenceCodeIsTaken() {
+        // A legacy random code already holds the sequence's first code.
+        Iterator<String> codes = List.of("legacy1", "seqcod2").iterator();
+        LinkService sequenceService = newLinkService(new ShortCodeGenerator() {
+            @Override
+            public String nextCode() {
+                return codes.next();
+            }
+
+            @Override
+            public boolean requiresUniquenessCheck() {
+                return false;
+            }
+        });
+        String targetUrl = "https://fiverr.com/seller/gig";
+        when(linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))).thenReturn(Optional.empty());
+        when(linkRepository.save(any(Link.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint on short_code"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        Link result = sequenceService.createShortLink(targetUrl);
+
+        assertEquals("seqcod2", result.getShortCode());
+        verify(linkRepository, never()).findByShortCode(any());
+        verify(transactionManager).rollback(any());
+    }
+
     @Test
     void createShortLink_shouldRejectNullUrl() {
         assertThrows(IllegalArgumentException.class, () -> linkService.createShortLink(null));
@@ -80,6 +171,12 @@ class LinkServiceTest {
         assertThrows(IllegalArgumentException.class, () -> linkService.createShortLink("   "));
     }
 
+    @Test
+    void createShortLink_shouldRejectUrlThatCannotBeRedirectedTo() {
+        assertThrows(IllegalArgumentException.class, () -> linkService.createShortLink("https://fiverr.com/a gig"));
+        verifyNoInteractions(linkRepository);
+    }
+
     @Test
     void getByShortCode_shouldReturnLink() {
         Link link = new Link("abc1234", "https://fiverr.com/seller/gig");
@@ -100,7 +197,7 @@ class LinkServiceTest {
     @Test
     void createShortLink_shortCodeShouldBeAlphanumeric() {
         String targetUrl = "https://fiverr.com/test";
-        when(linkRepository.findByTargetUrl(targetUrl)).thenReturn(Optional.empty());
+        when(linkRepository.findByTargetUrlHash(TargetUrlHash.of(targetUrl))).thenReturn(Optional.empty());
         when(linkRepository.findByShortCode(any())).thenReturn(Optional.empty());
         when(linkRepository.save(any(Link.class))).thenAnswer(i -> i.getArgument(0));
 
@@ -109,4 +206,58 @@ class LinkServiceTest {
         assertTrue(result.getShortCode().matches("[a-zA-Z0-9]+"),
                 "Short code should be alphanumeric: " + result.getShortCode());
     }
+
+    @Test
+    void resolve_shouldServeRepeatLookupsFromCache() {
+        when(linkRepository.findTargetByShortCode("abc1234"))
+                .thenReturn(Optional.of(new LinkTargetRow(1L, "abc1234", "https://fiverr.com/seller/gig")));
+
+        CachedLink first = linkService.resolve("abc1234");
+        CachedLink second = linkService.resolve("abc1234");
+
+        assertEquals("https://fiverr.com/seller/gig", second.targetUrl());
+        assertSame(second.targetUrl(), second.location());
+        assertEquals(first, second);
+        verify(linkRepository, times(1)).findTargetByShortCode("abc1234");
+    }
+
+    @Test
+    void resolve_shouldPrecomputeAsciiLocation() {
+        when(linkRepository.findTargetByShortCode("intl123"))
+                .thenReturn(Optional.of(new LinkTargetRow(2L, "intl123", "https://fiverr.com/café")));
+
+        assertEquals("https://fiverr.com/caf%C3%A9", linkService.resolve("intl123").location());
+    }
+
+    @Test
+    void resolve_shouldEncodeStoredUrlThatIsNotAValidUri() {
+        when(linkRepository.findTargetByShortCode("legacy1"))
+                .thenReturn(Optional.of(new LinkTargetRow(3L, "legacy1", "https://fiverr.com/my gig|ü?q=a b")));
+
+        assertEquals("https://fiverr.com/my%20gig%7C%C3%BC?q=a%20b", linkService.resolve("legacy1").location());
+    }
+
+    @Test
+    void warmUpCache_shouldSkipRowsThatCannotBeCached() {
+        ReflectionTestUtils.setField(linkService, "warmUpSize", 10);
+        when(linkMonthlyStatsRepository.findMostClickedLinkIds(any())).thenReturn(List.of(1L, 2L));
+        when(linkRepository.findTargetsByIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new LinkTargetRow(1L, "broken1", null),
+                new LinkTargetRow(2L, "good123", "https://fiverr.com/seller/gig")));
+
+        linkService.warmUpCache();
+
+        assertEquals("https://fiverr.com/seller/gig", linkService.resolve("good123").location());
+        verify(linkRepository, never()).findTargetByShortCode("good123");
+    }
+
+    @Test
+    void resolve_shouldCacheUnknownCodes() {
+        when(linkRepository.findTargetByShortCode("nope")).thenReturn(Optional.empty());
+
+        assertThrows(LinkNotFoundException.class, () -> linkService.resolve("nope"));
+        assertThrows(LinkNotFoundException.class, () -> linkService.resolve("nope"));
+
+        verify(linkRepository, times(1)).findTargetByShortCode("nope");
+    }
 }
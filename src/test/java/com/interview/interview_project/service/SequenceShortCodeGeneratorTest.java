@@ -0,0 +1,105 @@
+package com.interview.interview_project.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SequenceShortCodeGeneratorTest {
+
+    @Mock
+    private IdBlockAllocator allocator;
+
+    @Test
+    void nextCode_shouldAllocateOneBlockPerBlockSizeCodesAheadOfUse() {
+        when(allocator.allocate(eq(SequenceShortCodeGenerator.SEQUENCE_NAME), anyInt()))
+                .thenReturn(1L, 101L, 201L, 301L);
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(allocator, 100, true, 42L);
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 250; i++) {
+            codes.add(generator.nextCode());
+        }
+
+        assertEquals(250, codes.size());
+        // The fourth block is already being fetched while the third is in use.
+        verify(allocator, timeout(1000).times(4)).allocate(SequenceShortCodeGenerator.SEQUENCE_NAME, 100);
+        assertTrue(codes.stream().allMatch(code -> code.matches("[a-zA-Z0-9]{7}")));
+    }
+
+    @Test
+    void nextCode_shouldRetryBlockThatFailedToPrefetch() {
+        when(allocator.allocate(eq(SequenceShortCodeGenerator.SEQUENCE_NAME), anyInt()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(1L, 101L);
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(allocator, 100, true, 42L);
+        verify(allocator, timeout(1000)).allocate(SequenceShortCodeGenerator.SEQUENCE_NAME, 100);
+
+        assertEquals(generator.encode(1), generator.nextCode());
+    }
+
+    @Test
+    void nextCode_shouldHandOutDistinctCodesToConcurrentVirtualThreads() throws Exception {
+        AtomicLong blockStarts = new AtomicLong(1);
+        when(allocator.allocate(eq(SequenceShortCodeGenerator.SEQUENCE_NAME), anyInt()))
+                .thenAnswer(invocation -> blockStarts.getAndAdd(10));
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(allocator, 10, true, 42L);
+
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                executor.execute(() -> codes.add(generator.nextCode()));
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1000, codes.size());
+        generator.close();
+    }
+
+    @Test
+    void permute_shouldBeInjectiveAndStayInCodeSpace() {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(allocator, 100, true, 7L);
+
+        Set<Long> seen = new HashSet<>();
+        for (long id = 0; id < 200_000; id++) {
+            long permuted = generator.permute(id);
+            assertTrue(permuted >= 0 && permuted < SequenceShortCodeGenerator.CODE_SPACE);
+            assertTrue(seen.add(permuted), "Permutation collided at id " + id);
+        }
+        assertTrue(generator.permute(SequenceShortCodeGenerator.CODE_SPACE - 1)
+                < SequenceShortCodeGenerator.CODE_SPACE);
+    }
+
+    @Test
+    void encode_shouldScrambleConsecutiveIds() {
+        SequenceShortCodeGenerator scrambled = new SequenceShortCodeGenerator(allocator, 100, true, 7L);
+        SequenceShortCodeGenerator plain = new SequenceShortCodeGenerator(allocator, 100, false, 7L);
+
+        assertEquals("aaaaaab", plain.encode(1));
+        assertEquals("aaaaaac", plain.encode(2));
+        assertNotEquals(scrambled.encode(1).substring(0, 5), scrambled.encode(2).substring(0, 5));
+    }
+
+    @Test
+    void encode_shouldFailWhenSequenceIsExhausted() {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(allocator, 100, true, 7L);
+
+        assertThrows(IllegalStateException.class, () -> generator.encode(SequenceShortCodeGenerator.CODE_SPACE));
+    }
+}
@@ -0,0 +1,50 @@
+package com.interview.interview_project.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortCodeCacheTest {
+
+    private static final CachedLink LINK = new CachedLink(7L, "abc1234", "https://fiverr.com/gig", "https://fiverr.com/gig");
+
+    private final ShortCodeCache cache = new ShortCodeCache(1024 * 1024, 100, Duration.ofSeconds(30),
+            new SimpleMeterRegistry());
+
+    @Test
+    void get_shouldRememberMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.get(LINK.shortCode(), code -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        }).isEmpty());
+        assertTrue(cache.get(LINK.shortCode(), code -> Optional.of(LINK)).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldNotRememberAMissLoadedBeforeACommitThatCreatedTheLink() throws Exception {
+        Thread[] commit = new Thread[1];
+
+        Optional<CachedLink> loaded = cache.get(LINK.shortCode(), code -> {
+            // The row isn't visible yet; the create commits before this load finishes.
+            long before = cache.generation(code);
+            commit[0] = Thread.ofPlatform().start(() -> cache.invalidateAfterCommit(code));
+            while (cache.generation(code) == before) {
+                Thread.onSpinWait();
+            }
+            return Optional.empty();
+        });
+        commit[0].join(5_000);
+
+        assertTrue(loaded.isEmpty());
+        assertEquals(Optional.of(LINK), cache.get(LINK.shortCode(), code -> Optional.of(LINK)),
+                "The miss from before the commit must not hide the new link");
+    }
+}